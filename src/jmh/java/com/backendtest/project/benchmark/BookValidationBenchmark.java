@@ -0,0 +1,63 @@
+package com.backendtest.project.benchmark;
+
+import com.backendtest.project.dto.BookUpsertRequest;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Bean Validation of a {@link BookUpsertRequest}, including the ISBN {@code @Pattern} constraint
+ * inherited from {@link com.backendtest.project.validation.BookValidation}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookValidationBenchmark {
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private BookUpsertRequest validRequest;
+    private BookUpsertRequest invalidRequest;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        validRequest = request("123-456-789-1", LocalDate.of(2020, 12, 31));
+        invalidRequest = request("123-456-7890", null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    private static BookUpsertRequest request(String isbn, LocalDate publishedDate) {
+        BookUpsertRequest request = new BookUpsertRequest();
+        request.setTitle("Benchmark Book");
+        request.setAuthor("Benchmark Author");
+        request.setIsbn(isbn);
+        request.setPublishedDate(publishedDate);
+        request.setPrice(BigDecimal.valueOf(19.99));
+        return request;
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<BookUpsertRequest>> validRequest() {
+        return validator.validate(validRequest);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<BookUpsertRequest>> invalidIsbnAndMissingDate() {
+        return validator.validate(invalidRequest);
+    }
+}
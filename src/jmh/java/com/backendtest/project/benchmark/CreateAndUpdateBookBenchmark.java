@@ -0,0 +1,76 @@
+package com.backendtest.project.benchmark;
+
+import com.backendtest.project.ProjectApplication;
+import com.backendtest.project.dto.BookUpsertRequest;
+import com.backendtest.project.model.Book;
+import com.backendtest.project.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.text.ParseException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures {@link BookService#createAndUpdateBook} end to end (service, JPA, JDBC) against an in-memory H2
+ * database in MySQL mode standing in for MySQL. The absolute numbers are not those of production,
+ * but the benchmark catches regressions in the work the application itself does per write.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CreateAndUpdateBookBenchmark {
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private Long existingBookId;
+
+    @Setup
+    public void setUp() throws ParseException {
+        context = new SpringApplicationBuilder(ProjectApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driverClassName=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--logging.level.root=WARN");
+        bookService = context.getBean(BookService.class);
+        existingBookId = bookService.createAndUpdateBook(request(null)).getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    private BookUpsertRequest request(Long bookId) {
+        long n = sequence.incrementAndGet();
+        BookUpsertRequest request = new BookUpsertRequest();
+        request.setBookId(bookId);
+        request.setTitle("Benchmark Book " + n);
+        request.setAuthor("Benchmark Author");
+        request.setIsbn(String.format("%03d-%03d-%03d-%d", n / 10_000_000 % 1000, n / 10_000 % 1000, n / 10 % 1000, n % 10));
+        request.setPublishedDate(LocalDate.of(2020, 12, 31));
+        request.setPrice(BigDecimal.valueOf(19.99));
+        return request;
+    }
+
+    @Benchmark
+    public Book create() throws ParseException {
+        return bookService.createAndUpdateBook(request(null));
+    }
+
+    @Benchmark
+    public Book update() throws ParseException {
+        return bookService.createAndUpdateBook(request(existingBookId));
+    }
+}
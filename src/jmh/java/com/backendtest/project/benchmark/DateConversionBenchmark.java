@@ -0,0 +1,55 @@
+package com.backendtest.project.benchmark;
+
+import com.backendtest.project.validation.PublishedDateFormat;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the ways of turning the "MM-dd-yyyy" published date of an upsert request into a {@link LocalDate}.
+ *
+ * - {@code regexThenFormatterTwice}: the previous pipeline, a {@code @Pattern} regex match followed by two
+ *   conversions, each building a new {@link DateTimeFormatter}.
+ * - {@code formatterPerCall}: a single such conversion.
+ * - {@code sharedFormatter}: a conversion with a formatter built once.
+ * - {@code publishedDateFormat}: the single-pass {@link PublishedDateFormat} parser used today.
+ *
+ * Run with {@code -prof gc} to compare allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateConversionBenchmark {
+    private static final Pattern DATE_PATTERN = Pattern.compile("^(0[1-9]|1[0-2])-(0[1-9]|[12][0-9]|3[01])-\\d{4}$");
+    private static final DateTimeFormatter SHARED_FORMATTER = DateTimeFormatter.ofPattern("MM-dd-yyyy");
+
+    private String publishedDate = "12-31-2020";
+
+    @Benchmark
+    public LocalDate regexThenFormatterTwice() {
+        if (!DATE_PATTERN.matcher(publishedDate).matches()) throw new IllegalStateException();
+        LocalDate.parse(publishedDate, DateTimeFormatter.ofPattern("MM-dd-yyyy"));
+        return LocalDate.parse(publishedDate, DateTimeFormatter.ofPattern("MM-dd-yyyy"));
+    }
+
+    @Benchmark
+    public LocalDate formatterPerCall() {
+        return LocalDate.parse(publishedDate, DateTimeFormatter.ofPattern("MM-dd-yyyy"));
+    }
+
+    @Benchmark
+    public LocalDate sharedFormatter() {
+        return LocalDate.parse(publishedDate, SHARED_FORMATTER);
+    }
+
+    @Benchmark
+    public LocalDate publishedDateFormat() {
+        return PublishedDateFormat.parse(publishedDate);
+    }
+}
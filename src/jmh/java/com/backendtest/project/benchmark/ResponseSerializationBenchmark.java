@@ -0,0 +1,89 @@
+package com.backendtest.project.benchmark;
+
+import com.backendtest.project.dto.BookPage;
+import com.backendtest.project.dto.BookView;
+import com.backendtest.project.dto.ResponseDTO;
+import com.backendtest.project.model.Book;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.AnnotatedClass;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Jackson serialization of a {@link ResponseDTO} wrapping a list of books, as written by the list endpoints:
+ * entities as by {@code /books/search}, or a {@link BookPage} of views as by {@code /books-pagination}.
+ * The mapper is built the same way Spring Boot builds the one used by the HTTP message converters.
+ *
+ * {@code serializer=tuned} uses the hand-written {@link com.backendtest.project.json.BookSerializer} and
+ * {@link com.backendtest.project.json.BookViewSerializer}; {@code serializer=bean} ignores them, falling back to the
+ * reflective bean serializer used before. Allocation per response is reported with {@code -prof gc}
+ * ({@code gc.alloc.rate.norm}); divide by {@code books} for the allocation per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+    @Param({"10", "100", "1000"})
+    private int books;
+
+    @Param({"bean", "tuned"})
+    private String serializer;
+
+    @Param({"entity", "view"})
+    private String rows;
+
+    private ObjectWriter writer;
+    private ResponseDTO<?> response;
+
+    @Setup
+    public void setUp() {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        if ("bean".equals(serializer)) {
+            builder.annotationIntrospector(new JacksonAnnotationIntrospector() {
+                @Override
+                public Object findSerializer(Annotated a) {
+                    return a instanceof AnnotatedClass ? null : super.findSerializer(a);
+                }
+            });
+        }
+        ObjectMapper objectMapper = builder.build();
+        List<Book> entities = new ArrayList<>(books);
+        List<BookView> views = new ArrayList<>(books);
+        for (int i = 0; i < books; i++) {
+            Book book = new Book();
+            book.setId((long) i);
+            book.setTitle("Benchmark Book " + i);
+            book.setAuthor("Benchmark Author " + i);
+            book.setIsbn(String.format("%03d-%03d-%03d-%d", i / 1000, i % 1000, i % 7, i % 10));
+            book.setPrice(BigDecimal.valueOf(1999 + i, 2));
+            book.setPublishedDate(LocalDate.of(2000, 1, 1).plusDays(i));
+            entities.add(book);
+            views.add(new BookView(book.getId(), book.getTitle(), book.getAuthor(), book.getPublishedDate(), book.getIsbn(), book.getPrice()));
+        }
+        response = "entity".equals(rows)
+                ? new ResponseDTO<>(200, "success", entities)
+                : new ResponseDTO<>(200, "success", new BookPage<>((long) books, false, views));
+        writer = objectMapper.writer();
+    }
+
+    @Benchmark
+    public void serialize() throws IOException {
+        writer.writeValue(OutputStream.nullOutputStream(), response);
+    }
+}
@@ -0,0 +1,45 @@
+#!/usr/bin/env bash
+# Compares throughput and latency of the application with platform threads (default) and virtual threads
+# (virtual-threads profile) under the same load. Both runs use the same database and connection pool size.
+#
+# Requirements: a Java 21 runtime on the PATH (or JAVA_HOME) and the database settings of application.properties,
+# e.g. JDBC_DATABASE_URL=jdbc:mysql://localhost:3306/backend_test JDBC_USERNAME=root JDBC_PASSWORD=...
+#
+# Usage: src/loadtest/compare-threading.sh [load driver options], e.g. --concurrency 400 --duration PT60S
+set -euo pipefail
+
+cd "$(dirname "$0")/../.."
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+PORT="${PORT:-8080}"
+RESULTS="target/threading-comparison.csv"
+
+"$JAVA" -version 2>&1 | grep -qE 'version "(2[1-9]|[3-9][0-9])' || { echo "A Java 21+ runtime is required" >&2; exit 1; }
+./mvnw -B -q package -DskipTests
+./mvnw -B -q -Ploadtest test-compile
+JAR="$(ls target/project-*.jar | grep -v original | head -1)"
+rm -f "$RESULTS"
+
+# run <label> [JVM options...]
+run() {
+  local label="$1"; shift
+  "$JAVA" "$@" -jar "$JAR" --server.port="$PORT" \
+    --spring.datasource.hikari.maximum-pool-size="${DB_POOL_SIZE:-20}" > "target/$label.log" 2>&1 &
+  local pid=$!
+  trap "kill $pid 2>/dev/null" EXIT
+  until curl -sf "http://localhost:$PORT/actuator/health" > /dev/null; do
+    kill -0 "$pid" 2>/dev/null || { echo "Application failed to start, see target/$label.log" >&2; exit 1; }
+    sleep 1
+  done
+  ./mvnw -B -q -Ploadtest exec:exec \
+    -Dloadtest.args="--url http://localhost:$PORT/api/v1 --label $label --out $RESULTS $LOAD_ARGS"
+  kill "$pid"; wait "$pid" 2>/dev/null || true
+  trap - EXIT
+}
+
+LOAD_ARGS="$*"
+run platform
+# Pinned virtual threads are reported in the application log
+run virtual -Djdk.tracePinnedThreads=short -Dspring.profiles.active=virtual-threads
+
+column -s, -t < "$RESULTS"
+echo "Pinned virtual thread reports: $(grep -c "<== monitors" target/virtual.log || true)"
@@ -0,0 +1,51 @@
+#!/usr/bin/env bash
+# Compares throughput and latency of the application with the default connection pool and driver settings and with
+# the perf profile (application-perf.properties) under the same load, which by default sends every endpoint.
+#
+# Requirements: a Java 17+ runtime on the PATH (or JAVA_HOME). Without JDBC_DATABASE_URL, a local MySQL is started
+# with Docker Compose (src/loadtest/docker-compose.yml) and dropped at the end; each run starts on an empty database.
+#
+# Usage: src/loadtest/compare-tuning.sh [load driver options], e.g. --concurrency 100 --duration PT60S --mix all
+set -euo pipefail
+
+cd "$(dirname "$0")/../.."
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+PORT="${PORT:-8080}"
+RESULTS="target/tuning-comparison.csv"
+COMPOSE="docker compose -f src/loadtest/docker-compose.yml"
+
+if [ -z "${JDBC_DATABASE_URL:-}" ]; then
+  export JDBC_DATABASE_URL="jdbc:mysql://localhost:${MYSQL_PORT:-3306}/backend_test" JDBC_USERNAME=root JDBC_PASSWORD=loadtest
+  LOCAL_MYSQL=1
+fi
+
+./mvnw -B -q package -DskipTests
+./mvnw -B -q -Ploadtest test-compile
+JAR="$(ls target/project-*.jar | grep -v original | head -1)"
+rm -f "$RESULTS"
+
+# run <label> [application options...]
+run() {
+  local label="$1"; shift
+  if [ -n "${LOCAL_MYSQL:-}" ]; then
+    $COMPOSE down -v > /dev/null 2>&1 || true
+    $COMPOSE up -d --wait > /dev/null
+  fi
+  "$JAVA" -jar "$JAR" --server.port="$PORT" --spring.jpa.hibernate.ddl-auto=create-drop \
+    --app.books.write-behind.journal="target/$label.journal" "$@" > "target/$label.log" 2>&1 &
+  local pid=$!
+  trap "kill $pid 2>/dev/null; ${LOCAL_MYSQL:+$COMPOSE down -v > /dev/null 2>&1}" EXIT
+  until curl -sf "http://localhost:$PORT/actuator/health" > /dev/null; do
+    kill -0 "$pid" 2>/dev/null || { echo "Application failed to start, see target/$label.log" >&2; exit 1; }
+    sleep 1
+  done
+  ./mvnw -B -q -Ploadtest exec:exec \
+    -Dloadtest.args="--url http://localhost:$PORT/api/v1 --mix all --label $label --out $RESULTS $LOAD_ARGS"
+  kill "$pid"; wait "$pid" 2>/dev/null || true
+}
+
+LOAD_ARGS="$*"
+run default
+run perf --spring.profiles.active=perf
+
+column -s, -t < "$RESULTS"
@@ -0,0 +1,445 @@
+package com.backendtest.project.loadtest;
+
+import com.backendtest.project.util.CursorCodec;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load driver for the book API.
+ * A fixed number of workers send requests back to back for a given duration, picking each operation at random
+ * according to the configured mix. Throughput and latency percentiles of the measurement phase, overall and per
+ * operation, are printed and, with {@code --out}, appended as CSV rows so that several runs (e.g. platform vs virtual
+ * threads, default vs perf profile) can be compared.
+ *
+ * <pre>
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--concurrency 400 --label virtual"
+ * </pre>
+ *
+ * Options (defaults in brackets):
+ * <ul>
+ *     <li>{@code --url} base URL of the API [http://localhost:8080/api/v1]</li>
+ *     <li>{@code --concurrency} number of concurrent workers [200]</li>
+ *     <li>{@code --warmup}, {@code --duration} ISO-8601 durations of the two phases [PT10S, PT60S]</li>
+ *     <li>{@code --seed} number of books created before the run [1000]</li>
+ *     <li>{@code --mix} operation weights, or {@code all} for a mix of every endpoint [byId=70,page=20,create=10]</li>
+ *     <li>{@code --label} name of the run in the output [run]</li>
+ *     <li>{@code --out} CSV file the results are appended to [none]</li>
+ * </ul>
+ */
+public class LoadDriver {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final int SEED_BATCH_SIZE = 1000;
+    private static final int WRITE_BATCH_SIZE = 20;
+    /**
+     * Mostly reads, as the default mix, but sending every request of {@code BookController} except the change stream,
+     * which is a long-lived connection rather than a request.
+     */
+    static final String ALL_MIX = "byId=25,page=10,cursor=10,list=2,multiGet=8,filter=8,search=8,changes=4,export=1,"
+            + "create=5,update=5,async=3,batch=5,import=1,delete=5";
+
+    /**
+     * The requests the driver can send.
+     */
+    enum Operation {
+        /** GET /book/{id} of a seeded book. */
+        BY_ID("byId"),
+        /** GET /books-pagination of a random page, without the total count. */
+        PAGE("page"),
+        /** GET /books-pagination of the page following a random seeded book. */
+        CURSOR("cursor"),
+        /** GET /books, the whole catalog. */
+        LIST("list"),
+        /** GET /books/batch of random seeded books. */
+        MULTI_GET("multiGet"),
+        /** GET /books/filter of a price range. */
+        FILTER("filter"),
+        /** GET /books/search of the seeded titles. */
+        SEARCH("search"),
+        /** GET /books/changes from the oldest retained change. */
+        CHANGES("changes"),
+        /** GET /books/export of the whole catalog as NDJSON. */
+        EXPORT("export"),
+        /** POST /books of a new book. */
+        CREATE("create"),
+        /** POST /books of a seeded book, with a new title and ISBN. */
+        UPDATE("update"),
+        /** POST /books/async of a new book. */
+        ASYNC("async"),
+        /** POST /books/batch of new books, which later feed {@link #DELETE}. */
+        BATCH("batch"),
+        /** POST /books/import of new books as NDJSON. */
+        IMPORT("import"),
+        /** DELETE /books/{id} of a book created by {@link #BATCH}, so the seeded books stay readable. */
+        DELETE("delete");
+
+        private final String key;
+
+        Operation(String key) {
+            this.key = key;
+        }
+
+        static Operation of(String key) {
+            for (Operation operation : values()) {
+                if (operation.key.equals(key)) return operation;
+            }
+            throw new IllegalArgumentException("Unknown operation " + key);
+        }
+    }
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final AtomicLong isbnSequence = new AtomicLong(System.currentTimeMillis() % 1_000_000L * 1_000_000L);
+    private final String baseUrl;
+    private final Map<String, String> options;
+    private long[] bookIds;
+    private final Queue<Long> disposableIds = new ConcurrentLinkedQueue<>();
+
+    LoadDriver(Map<String, String> options) {
+        this.options = options;
+        this.baseUrl = option("url", "http://localhost:8080/api/v1");
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) throw new IllegalArgumentException("Unexpected argument " + args[i]);
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        new LoadDriver(options).run();
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    void run() throws Exception {
+        int concurrency = Integer.parseInt(option("concurrency", "200"));
+        Duration warmup = Duration.parse(option("warmup", "PT10S"));
+        Duration duration = Duration.parse(option("duration", "PT60S"));
+        String mixOption = option("mix", "byId=70,page=20,create=10");
+        Operation[] mix = parseMix("all".equals(mixOption) ? ALL_MIX : mixOption);
+        String label = option("label", "run");
+
+        bookIds = seed(Integer.parseInt(option("seed", "1000")));
+        System.out.printf("Seeded %d books, warming up for %s with %d workers%n", bookIds.length, warmup, concurrency);
+        runPhase(concurrency, warmup, mix);
+        System.out.printf("Measuring for %s%n", duration);
+        Result result = runPhase(concurrency, duration, mix);
+
+        Map<String, Result> results = new LinkedHashMap<>();
+        results.put("all", result);
+        results.putAll(result.byOperation());
+        StringBuilder csv = new StringBuilder();
+        results.forEach((operation, r) -> {
+            System.out.printf(Locale.ROOT, "%s %-8s: %d requests, %d errors, %.1f req/s, p50 %.2f ms, p95 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                    label, operation, r.requests(), r.errors(), r.throughput(duration),
+                    r.percentileMillis(0.50), r.percentileMillis(0.95), r.percentileMillis(0.99), r.percentileMillis(1.0));
+            csv.append(String.format(Locale.ROOT, "%s,%s,%d,%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f%n",
+                    label, operation, concurrency, r.requests(), r.errors(), r.throughput(duration),
+                    r.percentileMillis(0.50), r.percentileMillis(0.95), r.percentileMillis(0.99), r.percentileMillis(1.0)));
+        });
+        String out = options.get("out");
+        if (out != null) {
+            Path path = Path.of(out);
+            if (!Files.exists(path)) {
+                Files.writeString(path, "label,operation,concurrency,requests,errors,throughput,p50_ms,p95_ms,p99_ms,max_ms\n", StandardCharsets.UTF_8);
+            }
+            Files.writeString(path, csv, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        }
+    }
+
+    /**
+     * Expands weights such as {@code byId=70,page=20,create=10} into an array of 100 operations to pick from.
+     */
+    static Operation[] parseMix(String mix) {
+        List<Operation> operations = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] weight = entry.trim().split("=");
+            Operation operation = Operation.of(weight[0]);
+            operations.addAll(Collections.nCopies(Integer.parseInt(weight[1]), operation));
+        }
+        if (operations.isEmpty()) throw new IllegalArgumentException("Empty operation mix");
+        return operations.toArray(Operation[]::new);
+    }
+
+    private long[] seed(int count) throws IOException, InterruptedException {
+        long[] ids = new long[count];
+        for (int from = 0; from < count; from += SEED_BATCH_SIZE) {
+            int size = Math.min(SEED_BATCH_SIZE, count - from);
+            HttpResponse<String> response = send(batchRequest(size));
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Seeding failed with status " + response.statusCode() + ": " + response.body());
+            }
+            long[] created = createdIds(response);
+            System.arraycopy(created, 0, ids, from, size);
+        }
+        return ids;
+    }
+
+    private HttpRequest batchRequest(int size) {
+        List<Map<String, Object>> books = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) books.add(newBook());
+        return post("/books/batch", "application/json", json(Map.of("books", books)));
+    }
+
+    /**
+     * @return the ids of the books created by a POST /books/batch.
+     */
+    private static long[] createdIds(HttpResponse<String> response) throws IOException {
+        JsonNode result = OBJECT_MAPPER.readTree(response.body()).path("result");
+        long[] ids = new long[result.size()];
+        for (int i = 0; i < ids.length; i++) ids[i] = result.get(i).path("id").asLong();
+        return ids;
+    }
+
+    private Map<String, Object> newBook() {
+        String digits = String.format("%013d", isbnSequence.incrementAndGet());
+        Map<String, Object> book = new LinkedHashMap<>();
+        book.put("title", "Load test " + digits);
+        book.put("author", "Load Driver");
+        book.put("publishedDate", "01-15-2020");
+        book.put("isbn", digits.substring(0, 3) + "-" + digits.substring(3, 6) + "-" + digits.substring(6, 9) + "-"
+                + digits.substring(9, 12) + "-" + digits.substring(12));
+        // Spread over the price ranges of the filter operation
+        book.put("price", BigDecimal.valueOf(ThreadLocalRandom.current().nextInt(100, 5000), 2));
+        return book;
+    }
+
+    private long randomBookId() {
+        return bookIds[ThreadLocalRandom.current().nextInt(bookIds.length)];
+    }
+
+    /**
+     * Builds the request of an operation. A {@link Operation#DELETE} without a book left to delete first creates some,
+     * outside of the measured time.
+     */
+    private HttpRequest request(Operation operation) throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (operation) {
+            case BY_ID -> get("/book/" + randomBookId());
+            case PAGE -> get("/books-pagination?withTotal=false&size=20&page=" + random.nextInt(Math.max(1, bookIds.length / 20)));
+            case CURSOR -> get("/books-pagination?size=20&after=" + CursorCodec.encodeId(randomBookId()));
+            case LIST -> get("/books");
+            case MULTI_GET -> {
+                StringJoiner ids = new StringJoiner(",");
+                for (int i = 0; i < WRITE_BATCH_SIZE; i++) ids.add(String.valueOf(randomBookId()));
+                yield get("/books/batch?ids=" + ids);
+            }
+            case FILTER -> {
+                int minPrice = random.nextInt(20);
+                yield get("/books/filter?size=20&minPrice=" + minPrice + "&maxPrice=" + (minPrice + 5));
+            }
+            case SEARCH -> get("/books/search?limit=20&q=load%20test");
+            case CHANGES -> get("/books/changes?since=0&limit=100");
+            case EXPORT -> get("/books/export?format=ndjson");
+            case CREATE -> post("/books", "application/json", json(newBook()));
+            case UPDATE -> {
+                Map<String, Object> book = newBook();
+                book.put("bookId", randomBookId());
+                yield post("/books", "application/json", json(book));
+            }
+            case ASYNC -> post("/books/async", "application/json", json(newBook()));
+            case BATCH -> batchRequest(WRITE_BATCH_SIZE);
+            case IMPORT -> {
+                StringBuilder ndjson = new StringBuilder();
+                for (int i = 0; i < WRITE_BATCH_SIZE * 5; i++) ndjson.append(json(newBook())).append('\n');
+                yield post("/books/import", "application/x-ndjson", ndjson.toString());
+            }
+            case DELETE -> {
+                Long id = disposableIds.poll();
+                if (id == null) {
+                    HttpResponse<String> response = send(batchRequest(WRITE_BATCH_SIZE));
+                    if (response.statusCode() != 200) throw new IOException("Cannot create books to delete: " + response.statusCode());
+                    for (long created : createdIds(response)) disposableIds.add(created);
+                    id = disposableIds.poll();
+                }
+                yield HttpRequest.newBuilder(URI.create(baseUrl + "/books/" + id)).DELETE().build();
+            }
+        };
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private HttpRequest post(String path, String contentType, String body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static String json(Object value) {
+        try {
+            return OBJECT_MAPPER.writeValueAsString(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private Result runPhase(int concurrency, Duration duration, Operation[] mix) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        Worker[] workers = new Worker[concurrency];
+        Thread[] threads = new Thread[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            workers[i] = new Worker(deadline, mix);
+            threads[i] = new Thread(workers[i], "load-driver-" + i);
+            threads[i].start();
+        }
+        int requests = 0;
+        for (int i = 0; i < concurrency; i++) {
+            threads[i].join();
+            requests += workers[i].count;
+        }
+        long[] latencies = new long[requests];
+        Operation[] operations = new Operation[requests];
+        boolean[] failed = new boolean[requests];
+        int offset = 0;
+        for (Worker worker : workers) {
+            System.arraycopy(worker.latencies, 0, latencies, offset, worker.count);
+            System.arraycopy(worker.operations, 0, operations, offset, worker.count);
+            System.arraycopy(worker.failed, 0, failed, offset, worker.count);
+            offset += worker.count;
+        }
+        return new Result(latencies, operations, failed);
+    }
+
+    /**
+     * Sends requests back to back until the deadline and records the operation, latency and outcome of each of them.
+     */
+    private class Worker implements Runnable {
+        private final long deadline;
+        private final Operation[] mix;
+        private long[] latencies = new long[1024];
+        private Operation[] operations = new Operation[1024];
+        private boolean[] failed = new boolean[1024];
+        private int count;
+
+        Worker(long deadline, Operation[] mix) {
+            this.deadline = deadline;
+            this.mix = mix;
+        }
+
+        @Override
+        public void run() {
+            while (System.nanoTime() < deadline) {
+                Operation operation = mix[ThreadLocalRandom.current().nextInt(mix.length)];
+                boolean error;
+                long start = 0;
+                try {
+                    HttpRequest request = request(operation);
+                    start = System.nanoTime();
+                    HttpResponse<String> response = send(request);
+                    error = response.statusCode() >= 400;
+                    if (operation == Operation.BATCH && !error) {
+                        for (long id : createdIds(response)) disposableIds.add(id);
+                    }
+                } catch (IOException e) {
+                    error = true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                    operations = Arrays.copyOf(operations, count * 2);
+                    failed = Arrays.copyOf(failed, count * 2);
+                }
+                latencies[count] = start == 0 ? 0 : System.nanoTime() - start;
+                operations[count] = operation;
+                failed[count++] = error;
+            }
+        }
+    }
+
+    /**
+     * The requests of a phase: latency in nanoseconds, operation and whether it failed, at the same index.
+     */
+    record Result(long[] latencies, Operation[] operations, boolean[] failed) {
+        Result {
+            // Sorts the latencies, keeping the other arrays aligned
+            long[] unsorted = latencies;
+            Integer[] order = new Integer[unsorted.length];
+            for (int i = 0; i < order.length; i++) order[i] = i;
+            Arrays.sort(order, Comparator.comparingLong(i -> unsorted[i]));
+            long[] sortedLatencies = new long[order.length];
+            Operation[] sortedOperations = new Operation[order.length];
+            boolean[] sortedFailed = new boolean[order.length];
+            for (int i = 0; i < order.length; i++) {
+                sortedLatencies[i] = unsorted[order[i]];
+                sortedOperations[i] = operations[order[i]];
+                sortedFailed[i] = failed[order[i]];
+            }
+            latencies = sortedLatencies;
+            operations = sortedOperations;
+            failed = sortedFailed;
+        }
+
+        int requests() {
+            return latencies.length;
+        }
+
+        long errors() {
+            long errors = 0;
+            for (boolean requestFailed : failed) if (requestFailed) errors++;
+            return errors;
+        }
+
+        /**
+         * @return the requests of each operation of the phase, in declaration order.
+         */
+        Map<String, Result> byOperation() {
+            Map<String, Result> results = new LinkedHashMap<>();
+            for (Operation operation : Operation.values()) {
+                int count = 0;
+                for (Operation other : operations) if (other == operation) count++;
+                if (count == 0) continue;
+                long[] operationLatencies = new long[count];
+                boolean[] operationFailed = new boolean[count];
+                int next = 0;
+                for (int i = 0; i < operations.length; i++) {
+                    if (operations[i] != operation) continue;
+                    operationLatencies[next] = latencies[i];
+                    operationFailed[next++] = failed[i];
+                }
+                Operation[] sameOperation = new Operation[count];
+                Arrays.fill(sameOperation, operation);
+                results.put(operation.key, new Result(operationLatencies, sameOperation, operationFailed));
+            }
+            return results;
+        }
+
+        double throughput(Duration duration) {
+            return latencies.length / (duration.toNanos() / 1e9);
+        }
+
+        double percentileMillis(double percentile) {
+            if (latencies.length == 0) return 0;
+            int index = (int) Math.ceil(percentile * latencies.length) - 1;
+            return latencies[Math.max(0, index)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.backendtest.project.cache;
+
+import com.backendtest.project.model.Book;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * In-process, size-bounded read-through cache of books by id (Caffeine, W-TinyLFU eviction).
+ * Missing ids are cached as well (negative caching) with a shorter time-to-live, so repeated lookups
+ * of unknown ids do not reach the database either.
+ * Hit, miss and eviction statistics are published as {@code cache.*} metrics with the tag {@code cache=books}.
+ *
+ * Loads run outside of the cache, without holding any of its locks, so a slow database read neither pins a virtual
+ * thread nor blocks other ids. A load is only cached if no book was evicted while it ran: otherwise it may have read
+ * a book before a write that has since evicted it, and is returned to its caller without being kept.
+ */
+@Component
+public class BookCache implements MeterBinder {
+    private final Cache<Long, Optional<Book>> cache;
+    // Incremented by every eviction, so a book read before it is not cached after it
+    private final AtomicLong generation = new AtomicLong();
+
+    public BookCache(@Value("${app.books.cache.maximum-size:10000}") long maximumSize,
+                     @Value("${app.books.cache.ttl:PT10M}") Duration ttl,
+                     @Value("${app.books.cache.negative-ttl:PT30S}") Duration negativeTtl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<Long, Optional<Book>>() {
+                    @Override
+                    public long expireAfterCreate(Long id, Optional<Book> book, long currentTime) {
+                        return (book.isPresent() ? ttl : negativeTtl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long id, Optional<Book> book, long currentTime, long currentDuration) {
+                        return expireAfterCreate(id, book, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long id, Optional<Book> book, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cached book for the given id, loading it with the given loader on a miss.
+     * The result of the load is cached unless a book was evicted while it ran.
+     *
+     * @param id the id of the book.
+     * @param loader the function reading the book from the database. A loader sharing its read with concurrent
+     *               callers must only share it with callers that saw the same {@link #generation}.
+     * @return the book, or an empty optional if it does not exist.
+     */
+    public Optional<Book> get(Long id, Function<Long, Optional<Book>> loader) {
+        Optional<Book> cached = cache.getIfPresent(id);
+        if (cached != null) return cached;
+        long loadedGeneration = generation.get();
+        Optional<Book> book = loader.apply(id);
+        put(id, book, loadedGeneration);
+        return book;
+    }
+
+    /**
+     * Returns the cached books for the given ids, loading all the missing ones with a single call of the given loader.
+     * Like {@link #get}, the loaded books are cached unless a book was evicted while they were read.
+     *
+     * @param ids the ids of the books.
+     * @param loader the function reading the books with the given ids from the database; ids it does not return are
+     *               cached as missing.
+     * @return the book, or an empty optional if it does not exist, for each distinct id.
+     */
+    public Map<Long, Optional<Book>> getAll(Collection<Long> ids, Function<Set<Long>, Map<Long, Book>> loader) {
+        Map<Long, Optional<Book>> books = new HashMap<>(cache.getAllPresent(ids));
+        Set<Long> missingIds = new HashSet<>();
+        for (Long id : ids) {
+            if (!books.containsKey(id)) missingIds.add(id);
+        }
+        if (missingIds.isEmpty()) return books;
+        long loadedGeneration = generation.get();
+        Map<Long, Book> loaded = loader.apply(missingIds);
+        for (Long id : missingIds) {
+            Optional<Book> book = Optional.ofNullable(loaded.get(id));
+            books.put(id, book);
+            put(id, book, loadedGeneration);
+        }
+        return books;
+    }
+
+    /**
+     * Returns the book for the given id if it is cached, without loading it on a miss or recording a hit or miss.
+     *
+     * @param id the id of the book.
+     * @return the cached book, or an empty optional if it is not cached or cached as missing.
+     */
+    public Optional<Book> peek(Long id) {
+        Optional<Book> book = cache.policy().getIfPresentQuietly(id);
+        return book == null ? Optional.empty() : book;
+    }
+
+    /**
+     * Returns the number of evictions so far.
+     *
+     * @return the current generation.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    // Checked and stored under the lock of the entry, so an eviction either prevents the put or removes its result
+    private void put(Long id, Optional<Book> book, long loadedGeneration) {
+        cache.asMap().compute(id, (key, current) -> generation.get() == loadedGeneration ? book : current);
+    }
+
+    public void evict(Long id) {
+        if (id == null) return;
+        generation.incrementAndGet();
+        cache.invalidate(id);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "books");
+    }
+}
@@ -0,0 +1,53 @@
+package com.backendtest.project.cache;
+
+import com.backendtest.project.repository.BookRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the total number of books in memory so paginated responses do not need a {@code SELECT COUNT(*)} per request.
+ * The counter is loaded lazily, maintained by the write paths of {@link com.backendtest.project.service.BookService},
+ * and periodically re-synchronized with the database to correct drift caused by other instances or direct SQL writes.
+ */
+@Component
+@Profile("!reactive")
+@RequiredArgsConstructor
+public class BookCountCache {
+    private static final long UNKNOWN = -1L;
+
+    private final BookRepository bookRepository;
+    private final AtomicLong count = new AtomicLong(UNKNOWN);
+
+    /**
+     * Returns the total number of books, counting them in the database only the first time.
+     *
+     * @return the total number of books.
+     */
+    public long get() {
+        long current = count.get();
+        if (current != UNKNOWN) return current;
+        long loaded = bookRepository.count();
+        count.compareAndSet(UNKNOWN, loaded);
+        return count.get();
+    }
+
+    public void increment(long delta) {
+        count.updateAndGet(current -> current == UNKNOWN ? UNKNOWN : current + delta);
+    }
+
+    public void decrement(long delta) {
+        count.updateAndGet(current -> current == UNKNOWN ? UNKNOWN : Math.max(0, current - delta));
+    }
+
+    /**
+     * Replaces the maintained value with the exact count from the database.
+     */
+    @Scheduled(fixedDelayString = "${app.books.count.resync-interval:PT5M}", initialDelayString = "${app.books.count.resync-interval:PT5M}")
+    public void resync() {
+        count.set(bookRepository.count());
+    }
+}
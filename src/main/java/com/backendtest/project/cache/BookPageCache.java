@@ -0,0 +1,140 @@
+package com.backendtest.project.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache of list responses ({@code /books}, {@code /books-pagination}) kept as serialized JSON bytes, together with
+ * their gzip-compressed form when they are large enough to be worth compressing. A repeated request for a hot page
+ * is answered by copying bytes, without querying, serializing or compressing again. Each page also carries its ETag,
+ * hashed once from its JSON bytes, so a conditional request is answered without copying or hashing the body.
+ * Pages are bounded by their total size in bytes, dropped on every write of {@link com.backendtest.project.service.BookService}
+ * and expire after a time-to-live to catch up with writes made by other instances or direct SQL.
+ * Hit, miss and eviction statistics are published as {@code cache.*} metrics with the tag {@code cache=book-pages}.
+ */
+@Component
+@Profile("!reactive")
+public class BookPageCache implements MeterBinder {
+    private final ObjectMapper objectMapper;
+    private final Cache<Key, SerializedPage> cache;
+    private final int minCompressSize;
+    // Incremented by every invalidation, so a page built from data read before it is not stored after it
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Identifies a cached response.
+     *
+     * @param path the endpoint, e.g. {@code books-pagination}.
+     * @param page the page number, 0 when the endpoint is not paginated.
+     * @param size the page size, 0 when the endpoint is not paginated.
+     * @param withTotal whether the response includes the total number of books.
+     */
+    public record Key(String path, int page, int size, boolean withTotal) {
+    }
+
+    /**
+     * A serialized response.
+     *
+     * @param json the JSON bytes.
+     * @param gzip the same bytes gzip-compressed, or null if the response is smaller than the compression threshold.
+     * @param etag the quoted ETag of the response, an MD5 hash of the JSON bytes.
+     */
+    public record SerializedPage(byte[] json, byte[] gzip, String etag) {
+        int weight() {
+            return json.length + (gzip == null ? 0 : gzip.length);
+        }
+    }
+
+    public BookPageCache(ObjectMapper objectMapper,
+                         @Value("${app.books.page-cache.maximum-size:64MB}") DataSize maximumSize,
+                         @Value("${app.books.page-cache.ttl:PT1M}") Duration ttl,
+                         @Value("${server.compression.min-response-size:2KB}") DataSize minCompressSize) {
+        this.objectMapper = objectMapper;
+        this.minCompressSize = Math.toIntExact(minCompressSize.toBytes());
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumSize.toBytes())
+                .weigher((Key key, SerializedPage page) -> page.weight())
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the serialized response for the given key, building and serializing it on a miss.
+     *
+     * @param key the response to look up.
+     * @param loader builds the response body, read from the database.
+     * @return the response as JSON bytes, and gzip bytes if it is large enough.
+     */
+    public SerializedPage get(Key key, Supplier<?> loader) {
+        SerializedPage cached = cache.getIfPresent(key);
+        if (cached != null) return cached;
+        long loadedGeneration = generation.get();
+        SerializedPage page = serialize(loader.get());
+        if (generation.get() == loadedGeneration) cache.put(key, page);
+        return page;
+    }
+
+    /**
+     * Returns the number of invalidations so far. A read shared between concurrent callers must only be shared by
+     * callers that saw the same generation (e.g. as part of its {@link com.backendtest.project.util.SingleFlight} key):
+     * a caller joining a read started before an invalidation would store a page missing the write under the new
+     * generation.
+     *
+     * @return the current generation.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Drops every cached page; called whenever a book is created, updated or deleted.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    private SerializedPage serialize(Object body) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            return new SerializedPage(json, json.length < minCompressSize ? null : gzip(json),
+                    "\"0" + DigestUtils.md5DigestAsHex(json) + "\"");
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "book-pages");
+    }
+}
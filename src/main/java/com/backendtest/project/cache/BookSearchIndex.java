@@ -0,0 +1,242 @@
+package com.backendtest.project.cache;
+
+import com.backendtest.project.model.Book;
+import com.backendtest.project.repository.BookRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index over the title and author of every book, used by
+ * {@link com.backendtest.project.service.BookService#search}.
+ * Each token (lower-cased word without accents) maps to the sorted ids of the books containing it. Tokens are kept
+ * in sorted order, so a prefix lookup is a range scan of the token map.
+ *
+ * Like {@link IsbnIndex}, the index is warmed once the application is ready and kept up to date by the write paths
+ * of {@link com.backendtest.project.service.BookService}; until it is warm, searches cannot be answered.
+ */
+@Slf4j
+@Component
+@Profile("!reactive")
+@RequiredArgsConstructor
+public class BookSearchIndex {
+    private final BookRepository bookRepository;
+    private final NavigableMap<String, PostingList> postings = new TreeMap<>();
+    private final Map<Long, String[]> tokensById = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean warm;
+
+    /**
+     * Splits a text into lower-cased tokens of letters and digits, with accents removed.
+     *
+     * @param text the text to split, may be null.
+     * @return the distinct tokens, in order of first appearance.
+     */
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) return List.of();
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD);
+        Set<String> tokens = new LinkedHashSet<>();
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) continue;
+            if (Character.isLetterOrDigit(c)) {
+                token.append(Character.toLowerCase(c));
+            } else if (!token.isEmpty()) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (!token.isEmpty()) tokens.add(token.toString());
+        return List.copyOf(tokens);
+    }
+
+    /**
+     * Loads the title and author of every book from the database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warmUp() {
+        try (Stream<BookRepository.SearchFields> entries = bookRepository.streamSearchFields()) {
+            entries.forEach(entry -> put(entry.getId(), entry.getTitle(), entry.getAuthor()));
+        }
+        warm = true;
+        lock.readLock().lock();
+        try {
+            log.info("Search index warmed with {} books and {} tokens", tokensById.size(), postings.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isWarm() {
+        return warm;
+    }
+
+    /**
+     * Finds the books matching every token of the query. Each query token matches the indexed tokens starting with it,
+     * so "tolk lord" finds "The Lord of the Rings" by "J. R. R. Tolkien".
+     *
+     * The posting lists are read in place, without copying them: the lists of each query token are merged in id order
+     * and the merged streams are intersected by skipping each one to the highest id seen, stopping after {@code limit}
+     * matches. A search thus reads about as many ids as it returns, even for a short prefix matching most books.
+     *
+     * @param query the words to search for.
+     * @param limit the maximum number of ids to return.
+     * @return the ids of the matching books in ascending order, at most {@code limit} of them.
+     */
+    public long[] search(String query, int limit) {
+        List<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty() || limit < 1) return new long[0];
+        lock.readLock().lock();
+        try {
+            PrefixCursor[] cursors = new PrefixCursor[queryTokens.size()];
+            for (int i = 0; i < cursors.length; i++) {
+                String prefix = queryTokens.get(i);
+                Collection<PostingList> lists = postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+                if (lists.isEmpty()) return new long[0];
+                cursors[i] = new PrefixCursor(lists);
+            }
+            long[] result = new long[Math.min(limit, 64)];
+            int size = 0;
+            long candidate = 0;
+            while (size < limit) {
+                // Skips every cursor to the candidate; a cursor landing past it raises the candidate for the next ones
+                long next = candidate;
+                boolean matched = true;
+                for (PrefixCursor cursor : cursors) {
+                    long id = cursor.seek(next);
+                    if (id < 0) return Arrays.copyOf(result, size);
+                    if (id != next) {
+                        next = id;
+                        matched = false;
+                    }
+                }
+                if (matched) {
+                    if (size == result.length) result = Arrays.copyOf(result, Math.min(limit, size * 2));
+                    result[size++] = next;
+                    candidate = next + 1;
+                } else {
+                    candidate = next;
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(Book book) {
+        put(book.getId(), book.getTitle(), book.getAuthor());
+    }
+
+    /**
+     * Indexes the title and author of the book with the given id, replacing what was indexed for it before.
+     */
+    public void put(Long id, String title, String author) {
+        if (id == null) return;
+        Set<String> tokens = new LinkedHashSet<>(tokenize(title));
+        tokens.addAll(tokenize(author));
+        lock.writeLock().lock();
+        try {
+            removeTokens(id);
+            for (String token : tokens) postings.computeIfAbsent(token, t -> new PostingList()).add(id);
+            tokensById.put(id, tokens.toArray(String[]::new));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        if (id == null) return;
+        lock.writeLock().lock();
+        try {
+            removeTokens(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeTokens(long id) {
+        String[] previous = tokensById.remove(id);
+        if (previous == null) return;
+        for (String token : previous) {
+            PostingList list = postings.get(token);
+            if (list != null && list.remove(id) && list.size == 0) postings.remove(token);
+        }
+    }
+
+    /**
+     * Sorted array of book ids with spare capacity. New books get increasing ids, so adding is usually an append.
+     */
+    private static final class PostingList {
+        private long[] ids = new long[2];
+        private int size;
+
+        void add(long id) {
+            int index = size == 0 || ids[size - 1] < id ? size : Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0 && index < size) return;
+            int insertAt = index < 0 ? -index - 1 : index;
+            if (size == ids.length) ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) return false;
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+
+    /**
+     * The ascending, distinct ids of the posting lists of the tokens starting with a prefix: a k-way merge of those
+     * lists through a heap ordered by the id each list is positioned at.
+     */
+    private static final class PrefixCursor {
+        private final PostingList[] lists;
+        private final int[] positions;
+        private final PriorityQueue<Integer> heap;
+
+        PrefixCursor(Collection<PostingList> matching) {
+            lists = matching.toArray(PostingList[]::new);
+            positions = new int[lists.length];
+            heap = new PriorityQueue<>(lists.length, Comparator.comparingLong(i -> lists[i].ids[positions[i]]));
+            // Empty lists are removed from the index, so every list has a first id
+            for (int i = 0; i < lists.length; i++) heap.add(i);
+        }
+
+        /**
+         * @return the smallest id not below {@code target}, or -1 if there is none (book ids are positive).
+         */
+        long seek(long target) {
+            while (!heap.isEmpty()) {
+                int i = heap.peek();
+                PostingList list = lists[i];
+                if (list.ids[positions[i]] >= target) return list.ids[positions[i]];
+                heap.poll();
+                int index = Arrays.binarySearch(list.ids, positions[i] + 1, list.size, target);
+                positions[i] = index < 0 ? -index - 1 : index;
+                if (positions[i] < list.size) heap.add(i);
+            }
+            return -1;
+        }
+    }
+}
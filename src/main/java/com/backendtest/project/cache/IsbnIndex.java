@@ -0,0 +1,93 @@
+package com.backendtest.project.cache;
+
+import com.backendtest.project.repository.BookRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * In-memory index from normalized ISBN to book id, used to detect duplicate ISBNs without a database round-trip.
+ * The index is warmed once the application is ready and kept up to date by the write paths of
+ * {@link com.backendtest.project.service.BookService}. Until it is warm, callers must fall back to the database.
+ *
+ * The index is an optimization only: the unique constraint on {@code book.isbn} remains the final guard
+ * against duplicates written concurrently or by other instances.
+ */
+@Slf4j
+@Component
+@Profile("!reactive")
+@RequiredArgsConstructor
+public class IsbnIndex {
+    private final BookRepository bookRepository;
+    private final Map<String, Long> idsByIsbn = new ConcurrentHashMap<>();
+    private final Map<Long, String> isbnsById = new ConcurrentHashMap<>();
+    private volatile boolean warm;
+
+    /**
+     * Normalizes an ISBN so that formatting differences (dashes, spaces, case of the check digit) do not matter.
+     *
+     * @param isbn the ISBN as submitted.
+     * @return the normalized ISBN, or null if the input is null.
+     */
+    public static String normalize(String isbn) {
+        if (isbn == null) return null;
+        StringBuilder normalized = new StringBuilder(isbn.length());
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (c != '-' && !Character.isWhitespace(c)) normalized.append(Character.toUpperCase(c));
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Loads every (id, ISBN) pair from the database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warmUp() {
+        try (Stream<BookRepository.IdAndIsbn> entries = bookRepository.streamIdAndIsbn()) {
+            entries.forEach(entry -> put(entry.getId(), entry.getIsbn()));
+        }
+        warm = true;
+        log.info("ISBN index warmed with {} entries", idsByIsbn.size());
+    }
+
+    public boolean isWarm() {
+        return warm;
+    }
+
+    /**
+     * @param isbn the ISBN to look up, in any format.
+     * @return the id of the book owning the ISBN, if known.
+     */
+    public Optional<Long> findId(String isbn) {
+        String key = normalize(isbn);
+        return key == null ? Optional.empty() : Optional.ofNullable(idsByIsbn.get(key));
+    }
+
+    /**
+     * Records that the book with the given id now has the given ISBN, dropping its previous ISBN if any.
+     */
+    public void put(Long id, String isbn) {
+        String key = normalize(isbn);
+        if (id == null || key == null) return;
+        String previous = isbnsById.put(id, key);
+        if (previous != null && !previous.equals(key)) idsByIsbn.remove(previous, id);
+        idsByIsbn.put(key, id);
+    }
+
+    public void remove(Long id) {
+        if (id == null) return;
+        String previous = isbnsById.remove(id);
+        if (previous != null) idsByIsbn.remove(previous, id);
+    }
+}
@@ -0,0 +1,76 @@
+package com.backendtest.project.config;
+
+import com.backendtest.project.repository.BookRepository;
+import com.backendtest.project.repository.ReactiveBookRepository;
+import com.github.benmanes.caffeine.jcache.CacheManagerImpl;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.Properties;
+
+/**
+ * JPA repositories of the servlet stack. The R2DBC repository of the reactive profile lives in the same package
+ * and must not be picked up by JPA.
+ *
+ * Also provides the regions of the Hibernate second-level and query cache ({@code spring.jpa.properties.hibernate.cache.*}):
+ * local Caffeine caches behind the JCache API, sized and expired by {@code app.books.l2-cache.*}. The cache manager
+ * belongs to this application context rather than to the JCache provider, so two contexts (e.g. in tests) never
+ * share cached books.
+ */
+@Configuration
+@Profile("!reactive")
+@EnableJpaRepositories(basePackageClasses = BookRepository.class,
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = ReactiveBookRepository.class))
+public class JpaConfig {
+    /**
+     * Region of the {@link com.backendtest.project.model.Book} entities.
+     */
+    public static final String BOOK_REGION = "book";
+    /**
+     * Region of the results of the cacheable queries of {@link BookRepository}.
+     */
+    public static final String BOOK_QUERY_REGION = "book-queries";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(@Value("${app.books.l2-cache.maximum-size:10000}") long maximumSize,
+                                              @Value("${app.books.l2-cache.ttl:PT10M}") Duration ttl,
+                                              @Value("${app.books.l2-cache.query-maximum-size:1000}") long queryMaximumSize,
+                                              @Value("${app.books.l2-cache.query-ttl:PT5M}") Duration queryTtl) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = new CacheManagerImpl(provider, false, provider.getDefaultURI(),
+                JpaConfig.class.getClassLoader(), new Properties());
+        cacheManager.createCache(BOOK_REGION, region(maximumSize, ttl));
+        cacheManager.createCache(BOOK_QUERY_REGION, region(queryMaximumSize, queryTtl));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, region(queryMaximumSize, queryTtl));
+        // The last update time of each table, against which cached query results are checked: it must outlive them,
+        // so it is neither bounded nor expired (it holds one entry per table)
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, new CaffeineConfiguration<>());
+        return cacheManager;
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(long maximumSize, Duration ttl) {
+        return new CaffeineConfiguration<>()
+                .setMaximumSize(OptionalLong.of(maximumSize))
+                .setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer cacheManagerHibernatePropertiesCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+}
@@ -0,0 +1,46 @@
+package com.backendtest.project.config;
+
+import com.backendtest.project.metrics.QueryCountInterceptor;
+import com.backendtest.project.metrics.QueryCountStatementInspector;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Micrometer instrumentation of the book API, exported through {@code /actuator/prometheus}:
+ * <ul>
+ *     <li>{@code http.server.requests}: latency per endpoint (Spring Boot).</li>
+ *     <li>{@code book.service}: latency per service method, tagged with the exception thrown ({@code @Timed}).</li>
+ *     <li>{@code book.jpa.queries}: JPA statements per request.</li>
+ *     <li>{@code book.api.errors}: errors returned by {@link com.backendtest.project.exception.GlobalExceptionHandler}.</li>
+ *     <li>{@code spring.data.repository.invocations} and {@code hikaricp.connections.*}: repository latency and
+ *     connection pool saturation (Spring Boot).</li>
+ * </ul>
+ */
+@Configuration
+public class MetricsConfig {
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer queryCountHibernatePropertiesCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new QueryCountStatementInspector());
+    }
+
+    @Bean
+    public WebMvcConfigurer queryCountWebMvcConfigurer(MeterRegistry meterRegistry) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(new QueryCountInterceptor(meterRegistry)).addPathPatterns("/api/**");
+            }
+        };
+    }
+}
@@ -0,0 +1,152 @@
+package com.backendtest.project.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sends read-only transactions ({@code @Transactional(readOnly = true)}, including the read methods of Spring Data
+ * repositories) to the read replicas in turn, and everything else to the primary.
+ *
+ * A replica only receives reads while it is reachable and lags behind the primary by at most {@code maxLag}; otherwise
+ * reads fall back to the primary. The lag is measured with a heartbeat: {@link #checkReplicas()} writes the current time
+ * in the {@code replica_heartbeat} table of the primary ({@link com.backendtest.project.model.ReplicaHeartbeat}, created
+ * with the schema), and reads it back from each replica once it is replicated.
+ *
+ * The routing decision is taken when a connection is first used, so this data source must be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the transaction manager opens the
+ * connection before the read-only flag of the transaction is visible.
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements MeterBinder, AutoCloseable {
+    static final String PRIMARY = "primary";
+
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas;
+    private final Duration maxLag;
+    private final Clock clock;
+    // Last measured lag of each replica, absent while it cannot be measured
+    private final Map<String, Duration> lags = new ConcurrentHashMap<>();
+    private volatile List<String> available = List.of();
+    private final AtomicInteger next = new AtomicInteger();
+    // Not a monitor: the check does JDBC I/O, which would pin a virtual thread to its carrier
+    private final ReentrantLock checkLock = new ReentrantLock();
+
+    /**
+     * @param primary the data source of the primary.
+     * @param replicas the data sources of the replicas, by name.
+     * @param maxLag the largest lag at which a replica still receives reads.
+     * @param clock the clock of the heartbeat.
+     */
+    public ReadWriteRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, Duration maxLag, Clock clock) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.maxLag = maxLag;
+        this.clock = clock;
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) return PRIMARY;
+        List<String> candidates = available;
+        if (candidates.isEmpty()) return PRIMARY;
+        return candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+    }
+
+    /**
+     * @return the names of the replicas currently receiving reads.
+     */
+    public List<String> getAvailableReplicas() {
+        return available;
+    }
+
+    /**
+     * Writes a heartbeat on the primary, then measures the lag of each replica and updates the replicas receiving reads.
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.replica-check-interval:PT2S}")
+    public void checkReplicas() {
+        checkLock.lock();
+        try {
+            writeHeartbeat();
+            List<String> healthy = new ArrayList<>(replicas.size());
+            replicas.forEach((name, replica) -> {
+                Duration lag = measureLag(name, replica);
+                if (lag == null) lags.remove(name);
+                else lags.put(name, lag);
+                if (lag != null && lag.compareTo(maxLag) <= 0) healthy.add(name);
+            });
+            if (!healthy.equals(available)) {
+                log.info("Replicas receiving reads: {} (lags {})", healthy.isEmpty() ? "none, reading from the primary" : healthy, lags);
+            }
+            available = List.copyOf(healthy);
+        } finally {
+            checkLock.unlock();
+        }
+    }
+
+    private void writeHeartbeat() {
+        try {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(primary);
+            long now = clock.millis();
+            if (jdbcTemplate.update("update replica_heartbeat set beat_millis = ? where id = 1", now) == 0) {
+                jdbcTemplate.update("insert into replica_heartbeat (id, beat_millis) values (1, ?)", now);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Cannot write the replica heartbeat on the primary: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return the time since the last heartbeat seen by the replica, or null if it cannot be read.
+     */
+    private Duration measureLag(String name, DataSource replica) {
+        try {
+            List<Long> beats = new JdbcTemplate(replica).queryForList("select beat_millis from replica_heartbeat where id = 1", Long.class);
+            if (beats.isEmpty()) return null;
+            return Duration.ofMillis(Math.max(0, clock.millis() - beats.get(0)));
+        } catch (DataAccessException e) {
+            log.debug("Cannot read the heartbeat of replica {}: {}", name, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (String name : replicas.keySet()) {
+            Gauge.builder("book.datasource.replica.lag", lags, l -> l.containsKey(name) ? l.get(name).toMillis() / 1000.0 : Double.NaN)
+                    .description("Replication lag of a read replica, measured with a heartbeat")
+                    .tag("replica", name)
+                    .baseUnit("seconds")
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource replica : replicas.values()) {
+            if (replica instanceof AutoCloseable closeable) closeable.close();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.backendtest.project.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * HTTP caching of the book list endpoints.
+ * Lists have no version of their own, so their ETag is a hash of the response body: the response is still built,
+ * but a client sending the ETag of its copy gets a 304 without the body. Single books have a version-based ETag
+ * instead (see {@link com.backendtest.project.controller.BookController#getById}), {@code /books} and
+ * {@code /books-pagination} take the ETag hashed once by {@link com.backendtest.project.cache.BookPageCache}, and the
+ * export is streamed, so none of them goes through this filter, which buffers a copy of the body.
+ *
+ * Also gives the streaming export its own async timeout ({@code app.books.export.timeout}), as it can run far longer
+ * on a large catalog than the other async requests, which keep {@code spring.mvc.async.request-timeout}.
+ */
+@Configuration
+@Profile("!reactive")
+public class WebConfig {
+    static final String EXPORT_PATH = "/api/v1/books/export";
+
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> listEtagFilter() {
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration = new FilterRegistrationBean<>(new ShallowEtagHeaderFilter());
+        registration.addUrlPatterns("/api/v1/books/filter", "/api/v1/books/search", "/api/v1/books/batch");
+        return registration;
+    }
+
+    @Bean
+    public WebMvcConfigurer exportTimeoutWebMvcConfigurer(@Value("${app.books.export.timeout:PT1H}") Duration exportTimeout) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+                    // Called with the async request before it is started, so the timeout set here is the one applied
+                    @Override
+                    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                        HttpServletRequest servletRequest = request.getNativeRequest(HttpServletRequest.class);
+                        if (request instanceof AsyncWebRequest asyncRequest && servletRequest != null
+                                && servletRequest.getRequestURI().endsWith(EXPORT_PATH)) {
+                            asyncRequest.setTimeout(exportTimeout.toMillis());
+                        }
+                    }
+                });
+            }
+        };
+    }
+}
@@ -1,32 +1,67 @@
 package com.backendtest.project.controller;
 
+import com.backendtest.project.cache.BookPageCache;
+import com.backendtest.project.dto.BookBatchUpsertRequest;
+import com.backendtest.project.dto.BookChangePage;
+import com.backendtest.project.dto.BookCursorPage;
+import com.backendtest.project.dto.BookImportResult;
+import com.backendtest.project.dto.BookLookup;
+import com.backendtest.project.dto.BookPage;
+import com.backendtest.project.dto.BookRangeFilter;
 import com.backendtest.project.dto.BookUpsertRequest;
+import com.backendtest.project.dto.BookVersion;
 import com.backendtest.project.dto.ResponseDTO;
+import com.backendtest.project.exception.BadRequestException;
 import com.backendtest.project.model.Book;
+import com.backendtest.project.service.BookChangeService;
+import com.backendtest.project.service.BookImportService;
 import com.backendtest.project.service.BookService;
+import com.backendtest.project.service.BookWriteBehindService;
+import com.backendtest.project.validation.PublishedDateFormat;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
 import java.text.ParseException;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * REST controller for handling book-related operations.
  * This controller includes endpoints for creating, retrieving, updating, and deleting books.
  */
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/v1/")
 @RequiredArgsConstructor
 public class BookController {
     private final BookService bookService;
+    private final BookChangeService bookChangeService;
+    private final BookImportService bookImportService;
+    private final BookWriteBehindService bookWriteBehindService;
+    private final ObjectMapper objectMapper;
+    private final BookPageCache bookPageCache;
 
     /**
      * Retrieves a paginated list of books.
@@ -36,45 +71,307 @@ public class BookController {
      *
      * If `page` or `size` parameters are not provided, they default to 0 and 5, respectively.
      * The method uses the `PageRequest.of(page, size)` to create a Pageable instance for pagination.
+     *
+     * The `withTotal` parameter (default true) adds the total number of books; set it to false to skip it.
+     *
+     * When the `after` parameter is present the cursor-based (keyset) mode is used instead and `page` is ignored:
+     * pass an empty `after` for the first page, then the `nextCursor` of each response to get the following one.
+     *
+     * The optional `fields` parameter (e.g. `fields=title,price`) returns only these fields of each book, plus its id.
+     *
+     * Offset pages of whole books are served from {@link BookPageCache}.
      */
     @GetMapping("/books-pagination")
-    public ResponseEntity<ResponseDTO> getAll(@RequestParam(required = false, defaultValue = "0") int page,
-                                              @RequestParam(required = false, defaultValue = "5") int size) {
+    public ResponseEntity<?> getAll(@RequestParam(required = false, defaultValue = "0") int page,
+                                    @RequestParam(required = false, defaultValue = "5") int size,
+                                    @RequestParam(required = false) String after,
+                                    @RequestParam(required = false, defaultValue = "true") boolean withTotal,
+                                    @RequestParam(required = false) List<String> fields,
+                                    @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                    WebRequest webRequest) {
+        if (after != null) {
+            BookCursorPage<?> responses = fields == null ? bookService.findAllAfter(after, size) : bookService.findAllAfter(after, size, fields);
+            return ResponseEntity.ok(new ResponseDTO<>(HttpStatus.OK.value(), "success", responses));
+        }
         Pageable pageable = PageRequest.of(page, size);
-        Map<String, Object> responses = bookService.findAllWithPagination(pageable);
-        return ResponseEntity.ok(new ResponseDTO(HttpStatus.OK.value(), "success", responses));
+        if (fields == null) {
+            return cachedPage(new BookPageCache.Key("books-pagination", page, size, withTotal), acceptEncoding, webRequest,
+                    () -> bookService.findAllWithPagination(pageable, withTotal));
+        }
+        BookPage<Map<String, Object>> responses = bookService.findAllWithPagination(pageable, withTotal, fields);
+        return ResponseEntity.ok(new ResponseDTO<>(HttpStatus.OK.value(), "success", responses));
     }
 
+    /**
+     * Answers with a response of {@link BookPageCache}, serialized once and then copied as is: gzip-compressed when
+     * the client accepts it and the response is large enough, plain JSON otherwise. The ETag is the one of the cached
+     * page: a client sending it in `If-None-Match` gets a 304 Not Modified without the body.
+     */
+    private ResponseEntity<?> cachedPage(BookPageCache.Key key, String acceptEncoding, WebRequest webRequest, Supplier<?> result) {
+        BookPageCache.SerializedPage serialized = bookPageCache.get(key,
+                () -> new ResponseDTO<>(HttpStatus.OK.value(), "success", result.get()));
+        // Sets the 304 status and the ETag on the response; nothing else is written
+        if (webRequest.checkNotModified(serialized.etag())) return null;
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(serialized.etag())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (serialized.gzip() != null && acceptsGzip(acceptEncoding)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(serialized.gzip());
+        }
+        return response.body(serialized.json());
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (!parts[0].trim().equalsIgnoreCase("gzip")) continue;
+            // gzip;q=0 explicitly refuses it
+            return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+        }
+        return false;
+    }
+
+    /**
+     * Creates a book, or updates it when `bookId` is set.
+     *
+     * An update can carry an `If-Match` header with the ETag of the book as last read: the book is then only updated
+     * if it has not been modified since, otherwise the response is 412 Precondition Failed.
+     */
     @PostMapping("/books")
-    public ResponseEntity<ResponseDTO> createAndUpdateBook(@RequestBody @Valid BookUpsertRequest bookUpsertRequest,
-                                            BindingResult bindingResult) throws ParseException {
-        if (bindingResult.hasErrors()) return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ResponseDTO(HttpStatus.BAD_REQUEST.value(), bindingResult.getAllErrors().get(0).getDefaultMessage(), null));
-        Book response = bookService.createAndUpdateBook(bookUpsertRequest);
+    public ResponseEntity<ResponseDTO<Void>> createAndUpdateBook(@RequestBody @Valid BookUpsertRequest bookUpsertRequest,
+                                            BindingResult bindingResult,
+                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) throws ParseException {
+        if (bindingResult.hasErrors()) return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ResponseDTO<>(HttpStatus.BAD_REQUEST.value(), bindingResult.getAllErrors().get(0).getDefaultMessage(), null));
+        Long expectedVersion = bookUpsertRequest.getBookId() == null ? null : BookETags.parseIfMatch(ifMatch);
+        Book response = expectedVersion == null
+                ? bookService.createAndUpdateBook(bookUpsertRequest)
+                : bookService.createAndUpdateBook(bookUpsertRequest, expectedVersion);
         if (response != null) {
-            return ResponseEntity.ok(new ResponseDTO(HttpStatus.OK.value(), "success", null));
+            return ResponseEntity.ok(new ResponseDTO<>(HttpStatus.OK.value(), "success", null));
         } else
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ResponseDTO(HttpStatus.INTERNAL_SERVER_ERROR.value(), "internal error", null));
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ResponseDTO<>(HttpStatus.INTERNAL_SERVER_ERROR.value(), "internal error", null));
+
+    }
+
+    /**
+     * Accepts a book to create, or to update when `bookId` is set, and writes it asynchronously: the response
+     * (202 Accepted) only means the book is validated and buffered. Upserts of the same ISBN buffered together are
+     * coalesced, the latest wins; a book rejected by the database when it is written (e.g. duplicate ISBN) is dropped.
+     *
+     * Responds with 429 Too Many Requests when the write buffer is full.
+     */
+    @PostMapping("/books/async")
+    public ResponseEntity<ResponseDTO<Void>> enqueueBook(@RequestBody @Valid BookUpsertRequest bookUpsertRequest,
+                                                   BindingResult bindingResult) {
+        if (bindingResult.hasErrors()) return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ResponseDTO<>(HttpStatus.BAD_REQUEST.value(), bindingResult.getAllErrors().get(0).getDefaultMessage(), null));
+        bookWriteBehindService.enqueue(bookUpsertRequest);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(new ResponseDTO<>(HttpStatus.ACCEPTED.value(), "accepted", null));
+    }
 
+    /**
+     * Creates or updates several books in one transaction: items without bookId are created, the others updated.
+     * Either every item is saved or none is.
+     */
+    @PostMapping("/books/batch")
+    public ResponseEntity<ResponseDTO<List<Book>>> createAndUpdateBooks(@RequestBody @Valid BookBatchUpsertRequest bookBatchUpsertRequest,
+                                                            BindingResult bindingResult) {
+        if (bindingResult.hasErrors()) return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ResponseDTO<>(HttpStatus.BAD_REQUEST.value(), bindingResult.getAllErrors().get(0).getDefaultMessage(), null));
+        List<Book> response = bookService.createAndUpdateBooks(bookBatchUpsertRequest.getBooks());
+        return ResponseEntity.ok(new ResponseDTO<>(HttpStatus.OK.value(), "success", response));
     }
 
+    /**
+     * Bulk-creates books from a feed sent as the request body, without loading it in memory.
+     *
+     * - `application/json`: a JSON array of books.
+     * - `application/x-ndjson`: one book per line.
+     * - `text/csv`: a header row (title,author,publishedDate,isbn,price) followed by one book per row.
+     *
+     * Each row is validated like a {@link BookUpsertRequest}; rejected rows are listed in the result with their row number.
+     */
+    @PostMapping(value = "/books/import", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public ResponseEntity<ResponseDTO<BookImportResult>> importBooks(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                   InputStream body) throws IOException {
+        BookImportResult result = bookImportService.importBooks(body, contentType);
+        return ResponseEntity.ok(new ResponseDTO<>(HttpStatus.OK.value(), "success", result));
+    }
+
+    /**
+     * Retrieves all books. The optional `fields` parameter (e.g. `fields=title,price`) returns only these fields of
+     * each book, plus its id. The list of whole books is served from {@link BookPageCache}.
+     *
+     * Only catalogs of at most 10000 books are returned at once (400 beyond): larger
+     * ones are read with `/books-pagination` or `/books/export`.
+     */
     @GetMapping("/books")
-    public ResponseEntity<ResponseDTO> getAll() {
-        return ResponseEntity.ok(new ResponseDTO(HttpStatus.OK.value(), "success", bookService.findAll()));
+    public ResponseEntity<?> getAll(@RequestParam(required = false) List<String> fields,
+                                    @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                    WebRequest webRequest) {
+        if (fields == null) {
+            return cachedPage(new BookPageCache.Key("books", 0, 0, false), acceptEncoding, webRequest, bookService::findAll);
+        }
+        return ResponseEntity.ok(new ResponseDTO<>(HttpStatus.OK.value(), "success", bookService.findAll(fields)));
+    }
+
+    /**
+     * Streams every book without loading the whole table into memory.
+     *
+     * - `format=json` (default) writes the usual {@link ResponseDTO} envelope, with `result` as a chunked JSON array.
+     * - `format=ndjson` writes one book per line (newline-delimited JSON).
+     *
+     * Rows are read from a database cursor and written to the response as they arrive.
+     */
+    @GetMapping("/books/export")
+    public ResponseEntity<StreamingResponseBody> exportAll(@RequestParam(required = false, defaultValue = "json") String format) {
+        boolean ndjson = "ndjson".equalsIgnoreCase(format);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                if (ndjson) {
+                    generator.setRootValueSeparator(null);
+                    bookService.streamAll(book -> writeNdjsonLine(generator, book));
+                } else {
+                    generator.writeStartObject();
+                    generator.writeNumberField("statusCode", HttpStatus.OK.value());
+                    generator.writeStringField("message", "success");
+                    generator.writeArrayFieldStart("result");
+                    generator.flush();
+                    bookService.streamAll(book -> writeArrayElement(generator, book));
+                    generator.writeEndArray();
+                    generator.writeEndObject();
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    private void writeNdjsonLine(JsonGenerator generator, Book book) {
+        try {
+            generator.writeObject(book);
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeArrayElement(JsonGenerator generator, Book book) {
+        try {
+            generator.writeObject(book);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Retrieves the books within a price and published date range, page by page.
+     *
+     * - `minPrice` / `maxPrice` and `publishedFrom` / `publishedTo` (MM-dd-yyyy) are optional inclusive bounds.
+     * - `sort` is `price` (default) or `publishedDate`, `direction` is `asc` (default) or `desc`; ties are ordered by id.
+     * - `size` is the number of books per page (default 5).
+     * - `after` is the `nextCursor` of the previous response, omitted for the first page. A cursor is only valid
+     *   with the same `sort` and `direction`.
+     */
+    @GetMapping("/books/filter")
+    public ResponseEntity<ResponseDTO<BookCursorPage<Book>>> filter(@RequestParam(required = false) BigDecimal minPrice,
+                                              @RequestParam(required = false) BigDecimal maxPrice,
+                                              @RequestParam(required = false) String publishedFrom,
+                                              @RequestParam(required = false) String publishedTo,
+                                              @RequestParam(required = false, defaultValue = "price") String sort,
+                                              @RequestParam(required = false, defaultValue = "asc") String direction,
+                                              @RequestParam(required = false, defaultValue = "5") int size,
+                                              @RequestParam(required = false) String after) {
+        BookRangeFilter filter = new BookRangeFilter();
+        filter.setMinPrice(minPrice);
+        filter.setMaxPrice(maxPrice);
+        if (publishedFrom != null) filter.setPublishedFrom(PublishedDateFormat.parse(publishedFrom));
+        if (publishedTo != null) filter.setPublishedTo(PublishedDateFormat.parse(publishedTo));
+        filter.setSortBy(BookRangeFilter.SortField.fromAttribute(sort));
+        filter.setDirection(Sort.Direction.fromOptionalString(direction)
+                .orElseThrow(() -> new BadRequestException("Direction must be one of asc, desc")));
+        return ResponseEntity.ok(new ResponseDTO<>(HttpStatus.OK.value(), "success", bookService.findByRange(filter, after, size)));
+    }
+
+    /**
+     * Searches books by title and author.
+     *
+     * - The `q` parameter holds the words to search for; each one matches a word of the title or author starting with it.
+     * - The `limit` parameter (default 20, at most 100) caps the number of books returned.
+     *
+     * Responds with 503 Service Unavailable while the search index is being built at startup.
+     */
+    @GetMapping("/books/search")
+    public ResponseEntity<ResponseDTO<List<Book>>> search(@RequestParam String q,
+                                              @RequestParam(required = false, defaultValue = "20") int limit) {
+        List<Book> books = bookService.search(q, Math.min(Math.max(limit, 1), 100));
+        return ResponseEntity.ok(new ResponseDTO<>(HttpStatus.OK.value(), "success", books));
+    }
+
+    /**
+     * Retrieves several books by id in one call, e.g. `ids=4,8,15`.
+     * The result has one entry per requested id, in request order: `found` is false, and `book` null, for an unknown id.
+     * At most 1000 ids can be requested at once.
+     */
+    @GetMapping("/books/batch")
+    public ResponseEntity<ResponseDTO<List<BookLookup>>> getByIds(@RequestParam List<Long> ids) {
+        List<BookLookup> books = bookService.findByIds(ids);
+        return ResponseEntity.ok(new ResponseDTO<>(HttpStatus.OK.value(), "success", books));
     }
 
+    /**
+     * Retrieves the creates, updates and deletes of books following a sequence number, to keep a copy of the catalog
+     * in sync without re-reading it.
+     *
+     * - `since` is the `nextSince` of the previous response, 0 (default) to start from the oldest retained change.
+     * - `limit` (default 100, at most 1000) caps the number of changes returned; `hasMore` tells whether to call again.
+     */
+    @GetMapping("/books/changes")
+    public ResponseEntity<ResponseDTO<BookChangePage>> getChanges(@RequestParam(required = false, defaultValue = "0") long since,
+                                                                  @RequestParam(required = false, defaultValue = "100") int limit) {
+        BookChangePage changes = bookChangeService.findChanges(since, Math.min(limit, 1000));
+        return ResponseEntity.ok(new ResponseDTO<>(HttpStatus.OK.value(), "success", changes));
+    }
+
+    /**
+     * Streams the changes following `since` as Server-Sent Events, one event per change: the event name is the type
+     * of the change and the event id its sequence number, so a reconnecting client resumes from its `Last-Event-ID`.
+     */
+    @GetMapping(value = "/books/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false, defaultValue = "0") long since,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return bookChangeService.subscribe(lastEventId != null ? lastEventId : since);
+    }
+
+    /**
+     * Retrieves a book by id, with its version as `ETag` and the time of its last update as `Last-Modified`.
+     *
+     * A conditional request (`If-None-Match` or `If-Modified-Since`) is first checked against the version of the book
+     * alone, and answered with 304 Not Modified without loading or serializing the book when the client copy is current.
+     */
     @GetMapping("/book/{id}")
-    public ResponseEntity<ResponseDTO> getById(@PathVariable Long id) {
+    public ResponseEntity<ResponseDTO<Book>> getById(@PathVariable Long id, WebRequest webRequest) {
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null || webRequest.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null) {
+            BookVersion version = bookService.findVersion(id);
+            // Sets the 304 status and the validators on the response; nothing else is written
+            if (webRequest.checkNotModified(BookETags.of(version), BookETags.lastModified(version))) return null;
+        }
         Book response = bookService.findById(id);
         if (response != null) {
-            return ResponseEntity.ok(new ResponseDTO(HttpStatus.OK.value(), "success", response));
+            BookVersion version = BookVersion.of(response);
+            return ResponseEntity.ok()
+                    .eTag(BookETags.of(version))
+                    .lastModified(BookETags.lastModified(version))
+                    .body(new ResponseDTO<>(HttpStatus.OK.value(), "success", response));
         } else
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ResponseDTO(HttpStatus.INTERNAL_SERVER_ERROR.value(), "internal error", null));
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ResponseDTO<>(HttpStatus.INTERNAL_SERVER_ERROR.value(), "internal error", null));
 
     }
 
     @DeleteMapping("/books/{id}")
-    public ResponseEntity<ResponseDTO> deleteById(@PathVariable Long id) {
+    public ResponseEntity<ResponseDTO<Void>> deleteById(@PathVariable Long id) {
         bookService.deleteById(id);
-        return ResponseEntity.ok(new ResponseDTO(HttpStatus.OK.value(), "success", null));
+        return ResponseEntity.ok(new ResponseDTO<>(HttpStatus.OK.value(), "success", null));
     }
 }
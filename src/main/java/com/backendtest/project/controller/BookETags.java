@@ -0,0 +1,45 @@
+package com.backendtest.project.controller;
+
+import com.backendtest.project.dto.BookVersion;
+import com.backendtest.project.exception.PreconditionFailedException;
+
+/**
+ * HTTP validators of a book: its version as a strong ETag ({@code "3"}) and its last update as Last-Modified.
+ */
+final class BookETags {
+
+    private BookETags() {
+    }
+
+    static String of(BookVersion version) {
+        return "\"" + version.version() + "\"";
+    }
+
+    /**
+     * @return the last update time in milliseconds, or -1 when it is unknown (no Last-Modified header).
+     */
+    static long lastModified(BookVersion version) {
+        return version.updatedAt() == null ? -1 : version.updatedAt().toEpochMilli();
+    }
+
+    /**
+     * Reads the version expected by an If-Match header.
+     *
+     * @param ifMatch the header value, may be null.
+     * @return the version the book must have, or null when any version matches (no header, or "*").
+     * @throws PreconditionFailedException if the value is not a single strong ETag of a book, which can never match.
+     */
+    static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) return null;
+        String value = ifMatch.trim();
+        if (value.equals("*")) return null;
+        if (value.length() > 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            try {
+                return Long.parseLong(value.substring(1, value.length() - 1));
+            } catch (NumberFormatException e) {
+                // Not one of our ETags
+            }
+        }
+        throw new PreconditionFailedException("If-Match must be the ETag of the book.");
+    }
+}
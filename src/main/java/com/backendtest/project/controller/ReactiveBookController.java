@@ -0,0 +1,110 @@
+package com.backendtest.project.controller;
+
+import com.backendtest.project.dto.BookUpsertRequest;
+import com.backendtest.project.dto.ResponseDTO;
+import com.backendtest.project.model.Book;
+import com.backendtest.project.service.ReactiveBookService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Reactive (WebFlux) counterpart of {@link BookController}, enabled by the "reactive" profile.
+ * It exposes the same endpoints with the same request and response bodies; validation errors and service errors are
+ * reported by {@link com.backendtest.project.exception.GlobalExceptionHandler} as in the servlet stack.
+ * Bulk writes (batch upsert and import) are only available in the servlet stack.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/v1/")
+@RequiredArgsConstructor
+public class ReactiveBookController {
+    private final ReactiveBookService bookService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Retrieves a paginated list of books, with the parameters of
+     * {@link BookController#getAll(int, int, String, boolean, java.util.List, String)} except `fields`.
+     */
+    @GetMapping("/books-pagination")
+    public Mono<ResponseDTO<?>> getAll(@RequestParam(required = false, defaultValue = "0") int page,
+                                    @RequestParam(required = false, defaultValue = "5") int size,
+                                    @RequestParam(required = false) String after,
+                                    @RequestParam(required = false, defaultValue = "true") boolean withTotal) {
+        if (after != null) {
+            return bookService.findAllAfter(after, size).map(res -> new ResponseDTO<>(HttpStatus.OK.value(), "success", res));
+        }
+        return bookService.findAllWithPagination(PageRequest.of(page, size), withTotal)
+                .map(res -> new ResponseDTO<>(HttpStatus.OK.value(), "success", res));
+    }
+
+    @PostMapping("/books")
+    public Mono<ResponseDTO<Void>> createAndUpdateBook(@RequestBody @Valid BookUpsertRequest bookUpsertRequest) {
+        return bookService.createAndUpdateBook(bookUpsertRequest)
+                .map(book -> new ResponseDTO<>(HttpStatus.OK.value(), "success", null));
+    }
+
+    @GetMapping("/books")
+    public Mono<ResponseDTO<List<Book>>> getAll() {
+        return bookService.findAll().collectList().map(books -> new ResponseDTO<>(HttpStatus.OK.value(), "success", books));
+    }
+
+    /**
+     * Streams every book, as {@link BookController#exportAll(String)} does.
+     *
+     * - `format=json` (default) writes the usual {@link ResponseDTO} envelope, with `result` as a chunked JSON array.
+     * - `format=ndjson` writes one book per line (newline-delimited JSON).
+     *
+     * Books are written as they are read from the database, and read only as fast as the client consumes them.
+     */
+    @GetMapping("/books/export")
+    public ResponseEntity<Flux<DataBuffer>> exportAll(@RequestParam(required = false, defaultValue = "json") String format) {
+        // Books are encoded here rather than by the codecs, which would collect the envelope before writing it
+        if ("ndjson".equalsIgnoreCase(format)) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(bookService.findAll().map(book -> toJson("", book, "\n")));
+        }
+        Flux<DataBuffer> body = Flux.concat(
+                Mono.fromSupplier(() -> toBuffer("{\"statusCode\":" + HttpStatus.OK.value() + ",\"message\":\"success\",\"result\":[")),
+                bookService.findAll().index().map(book -> toJson(book.getT1() == 0 ? "" : ",", book.getT2(), "")),
+                Mono.fromSupplier(() -> toBuffer("]}")));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private DataBuffer toJson(String prefix, Book book, String suffix) {
+        try {
+            return toBuffer(prefix + objectMapper.writeValueAsString(book) + suffix);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static DataBuffer toBuffer(String text) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @GetMapping("/book/{id}")
+    public Mono<ResponseDTO<Book>> getById(@PathVariable Long id) {
+        return bookService.findById(id).map(book -> new ResponseDTO<>(HttpStatus.OK.value(), "success", book));
+    }
+
+    @DeleteMapping("/books/{id}")
+    public Mono<ResponseDTO<Void>> deleteById(@PathVariable Long id) {
+        return bookService.deleteById(id).thenReturn(new ResponseDTO<>(HttpStatus.OK.value(), "success", null));
+    }
+}
@@ -0,0 +1,26 @@
+package com.backendtest.project.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object for creating or updating several books in one call.
+ * Every item is validated like a single {@link BookUpsertRequest}.
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+public class BookBatchUpsertRequest {
+    public static final int MAX_BOOKS = 1000;
+
+    @NotEmpty(message = "Books are required")
+    @Size(max = MAX_BOOKS, message = "At most " + MAX_BOOKS + " books can be upserted at once")
+    @Valid
+    private List<BookUpsertRequest> books;
+}
@@ -0,0 +1,15 @@
+package com.backendtest.project.dto;
+
+import com.backendtest.project.model.BookChange;
+
+import java.util.List;
+
+/**
+ * Page of the book change feed.
+ *
+ * @param changes the changes in sequence order.
+ * @param nextSince the value of since for the next call.
+ * @param hasMore whether more changes are already available.
+ */
+public record BookChangePage(List<BookChange> changes, long nextSince, boolean hasMore) {
+}
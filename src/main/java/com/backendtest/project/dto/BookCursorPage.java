@@ -0,0 +1,12 @@
+package com.backendtest.project.dto;
+
+import java.util.List;
+
+/**
+ * Page of books returned by the keyset (cursor) pagination endpoints.
+ *
+ * @param data the books of the page.
+ * @param nextCursor the cursor of the following page, null on the last page.
+ */
+public record BookCursorPage<T>(List<T> data, String nextCursor) {
+}
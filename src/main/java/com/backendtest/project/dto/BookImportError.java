@@ -0,0 +1,20 @@
+package com.backendtest.project.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Describes why a single row of a bulk import was rejected.
+ * Rows are numbered from 1 in the order they appear in the submitted file.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Setter
+@Getter
+public class BookImportError {
+    private long row;
+    private String isbn;
+    private String message;
+}
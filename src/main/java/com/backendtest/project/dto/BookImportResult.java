@@ -0,0 +1,26 @@
+package com.backendtest.project.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Summary of a bulk import: how many rows were received, written and rejected, with the reason for each rejected row.
+ */
+@NoArgsConstructor
+@Setter
+@Getter
+public class BookImportResult {
+    private long received;
+    private long imported;
+    private long failed;
+    private List<BookImportError> errors = new ArrayList<>();
+
+    public void addError(long row, String isbn, String message) {
+        errors.add(new BookImportError(row, isbn, message));
+        failed++;
+    }
+}
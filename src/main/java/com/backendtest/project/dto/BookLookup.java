@@ -0,0 +1,17 @@
+package com.backendtest.project.dto;
+
+import com.backendtest.project.model.Book;
+
+/**
+ * Result of the lookup of one id of a multi-get: the book, or an explicit not-found marker.
+ *
+ * @param id the requested id.
+ * @param found whether a book has this id.
+ * @param book the book, or null if not found.
+ */
+public record BookLookup(Long id, boolean found, Book book) {
+
+    public static BookLookup of(Long id, Book book) {
+        return new BookLookup(id, book != null, book);
+    }
+}
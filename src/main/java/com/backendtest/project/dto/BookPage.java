@@ -0,0 +1,16 @@
+package com.backendtest.project.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Offset page of books returned by the pagination endpoints.
+ *
+ * @param totalCount the total number of books, null when it was not requested.
+ * @param hasNext whether another page follows.
+ * @param data the books of the page, as {@link BookView}s or as maps of the selected fields.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BookPage<T>(Long totalCount, boolean hasNext, List<T> data) {
+}
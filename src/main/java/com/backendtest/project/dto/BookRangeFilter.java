@@ -0,0 +1,62 @@
+package com.backendtest.project.dto;
+
+import com.backendtest.project.exception.BadRequestException;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Range filter on the price and published date of books, with the column the results are sorted by.
+ * Every bound is optional and inclusive; a filter without bounds matches every book.
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+public class BookRangeFilter {
+
+    private BigDecimal minPrice;
+
+    private BigDecimal maxPrice;
+
+    private LocalDate publishedFrom;
+
+    private LocalDate publishedTo;
+
+    private SortField sortBy = SortField.PRICE;
+
+    private Sort.Direction direction = Sort.Direction.ASC;
+
+    /**
+     * Columns the results can be sorted by, each backed by a composite (column, id) index.
+     */
+    @Getter
+    public enum SortField {
+        PRICE("price"),
+        PUBLISHED_DATE("publishedDate");
+
+        /**
+         * Name of the {@link com.backendtest.project.model.Book} attribute, also used as request parameter value.
+         */
+        private final String attribute;
+
+        SortField(String attribute) {
+            this.attribute = attribute;
+        }
+
+        /**
+         * @param attribute "price" or "publishedDate".
+         * @return the corresponding sort field.
+         * @throws BadRequestException if the value is not a sortable attribute.
+         */
+        public static SortField fromAttribute(String attribute) {
+            for (SortField field : values()) {
+                if (field.attribute.equalsIgnoreCase(attribute)) return field;
+            }
+            throw new BadRequestException("Sort must be one of price, publishedDate");
+        }
+    }
+}
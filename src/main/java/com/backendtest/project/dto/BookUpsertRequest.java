@@ -1,13 +1,18 @@
 package com.backendtest.project.dto;
 
+import com.backendtest.project.json.PublishedDateDeserializer;
+import com.backendtest.project.json.PublishedDateSerializer;
 import com.backendtest.project.validation.BookValidation;
-import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 
 
 /**
@@ -27,14 +32,15 @@ public class BookUpsertRequest implements BookValidation {
     private String author;
 
     /**
-     * Validation for publish date request
-     * Because of Pattern can not be use for Date type, so we will use String for Pattern validate
-     * If data is valid, it will be converted to Date at convertStringToDate in {@link com.backendtest.project.service.Impl.BookServiceImpl}.
+     * Publish date request in format MM-dd-yyyy.
+     * The text is validated and converted in one pass while the request body is read, by {@link PublishedDateDeserializer}:
+     * a request with an invalid date is rejected before reaching validation, so the DTO always carries a {@link LocalDate}.
      */
     @NotNull
-    @Pattern(regexp = "^(0[1-9]|1[0-2])-(0[1-9]|[12][0-9]|3[01])-\\d{4}$", message = "Published date must be in format MM-dd-yyyy")
-    @JsonFormat(pattern = "MM-dd-yyyy")
-    private String publishedDate;
+    @JsonDeserialize(using = PublishedDateDeserializer.class)
+    @JsonSerialize(using = PublishedDateSerializer.class)
+    @Schema(type = "string", pattern = "^(0[1-9]|1[0-2])-(0[1-9]|[12][0-9]|3[01])-\\d{4}$", example = "12-31-2020")
+    private LocalDate publishedDate;
 
     private String isbn;
 
@@ -0,0 +1,18 @@
+package com.backendtest.project.dto;
+
+import com.backendtest.project.model.Book;
+
+import java.time.Instant;
+
+/**
+ * Version and last update time of a book, enough to answer a conditional request without loading the book.
+ *
+ * @param version the {@link Book#getVersion() version} of the book.
+ * @param updatedAt the time of the last insert or update, or null if unknown.
+ */
+public record BookVersion(long version, Instant updatedAt) {
+
+    public static BookVersion of(Book book) {
+        return new BookVersion(book.getVersion(), book.getUpdatedAt());
+    }
+}
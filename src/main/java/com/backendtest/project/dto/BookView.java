@@ -0,0 +1,23 @@
+package com.backendtest.project.dto;
+
+import com.backendtest.project.json.BookViewSerializer;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Read-only view of a book returned by the list endpoints.
+ * It is built by a constructor expression in the query, so no {@link com.backendtest.project.model.Book} entity is
+ * instantiated, snapshotted for dirty checking or kept in the persistence context. It serializes to the same JSON
+ * as the entity, through {@link BookViewSerializer}.
+ */
+@JsonSerialize(using = BookViewSerializer.class)
+public record BookView(Long id, String title, String author, LocalDate publishedDate, String isbn, BigDecimal price) {
+
+    /**
+     * Names of the fields a client can select with the {@code fields} parameter, in serialization order.
+     */
+    public static final List<String> FIELDS = List.of("id", "title", "author", "publishedDate", "isbn", "price");
+}
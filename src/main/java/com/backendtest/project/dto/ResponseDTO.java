@@ -9,15 +9,17 @@ import lombok.Setter;
 /**
  * A Data Transfer Object (DTO) for standardizing API responses.
  * This class is used to structure the response data, including a status flag, a message, and the actual result.
+ * The type of the result is part of the signature of each endpoint (and of the generated OpenAPI schema).
  *
+ * @param <T> the type of the result, {@link Void} for responses without one.
  */
 @AllArgsConstructor
 @NoArgsConstructor
 @Setter
 @Getter
 @JsonInclude(JsonInclude.Include.NON_NULL)
-public class ResponseDTO {
+public class ResponseDTO<T> {
     private int statusCode;
     private String message;
-    private Object result;
+    private T result;
 }
@@ -0,0 +1,15 @@
+package com.backendtest.project.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Custom exception thrown when a request parameter is invalid (e.g. unknown sort, direction or field, page size below one).
+ * This exception results in a {@link HttpStatus#BAD_REQUEST} HTTP response status.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class BadRequestException extends RuntimeException{
+    public BadRequestException(String e){
+        super(e);
+    }
+}
@@ -1,43 +1,140 @@
 package com.backendtest.project.exception;
 
 import com.backendtest.project.dto.ResponseDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.bind.support.WebExchangeBindException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ServerWebInputException;
 
 import java.text.ParseException;
 
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
+    public static final String ERRORS_METRIC_NAME = "book.api.errors";
+
+    // Optional so that web slices without metrics (e.g. @WebMvcTest) still load the handler
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public GlobalExceptionHandler(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Counts an error returned to the client in the {@code book.api.errors} counter, tagged by exception type and status.
+     *
+     * @param ex the handled exception.
+     * @param status the status of the response.
+     */
+    private void countError(Exception ex, HttpStatus status) {
+        meterRegistry.ifAvailable(registry -> registry.counter(ERRORS_METRIC_NAME,
+                "exception", ex.getClass().getSimpleName(),
+                "status", String.valueOf(status.value())).increment());
+    }
+
     @ExceptionHandler(NotFoundException.class)
-    public ResponseEntity<ResponseDTO> handleNotFoundException(NotFoundException ex) {
-        ResponseDTO responseDTO = new ResponseDTO(HttpStatus.NOT_FOUND.value(), ex.getMessage(), null);
+    public ResponseEntity<ResponseDTO<Void>> handleNotFoundException(NotFoundException ex) {
+        countError(ex, HttpStatus.NOT_FOUND);
+        ResponseDTO<Void> responseDTO = new ResponseDTO<>(HttpStatus.NOT_FOUND.value(), ex.getMessage(), null);
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(responseDTO);
     }
     @ExceptionHandler(AlreadyExistException.class)
-    public ResponseEntity<ResponseDTO> handleAlreadyExistException(AlreadyExistException ex) {
-        ResponseDTO responseDTO = new ResponseDTO(HttpStatus.CONFLICT.value(), ex.getMessage(), null);
+    public ResponseEntity<ResponseDTO<Void>> handleAlreadyExistException(AlreadyExistException ex) {
+        countError(ex, HttpStatus.CONFLICT);
+        ResponseDTO<Void> responseDTO = new ResponseDTO<>(HttpStatus.CONFLICT.value(), ex.getMessage(), null);
         return ResponseEntity.status(HttpStatus.CONFLICT).body(responseDTO);
     }
 
     @ExceptionHandler(HttpMessageNotReadableException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
-    public ResponseEntity<ResponseDTO> handleHttpMessageNotReadableException(HttpMessageNotReadableException ex) {
-        ResponseDTO responseDTO = new ResponseDTO(HttpStatus.BAD_REQUEST.value(), "Invalid JSON format " + ex.getLocalizedMessage(), null);
+    public ResponseEntity<ResponseDTO<Void>> handleHttpMessageNotReadableException(HttpMessageNotReadableException ex) {
+        // An invalid date is detected while the body is read; report it like the other validation errors
+        for (Throwable cause = ex.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof InvalidDateException invalidDate) return handleInvalidDateException(invalidDate);
+        }
+        countError(ex, HttpStatus.BAD_REQUEST);
+        ResponseDTO<Void> responseDTO = new ResponseDTO<>(HttpStatus.BAD_REQUEST.value(), "Invalid JSON format " + ex.getLocalizedMessage(), null);
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(responseDTO);
     }
     @ExceptionHandler(ParseException.class)
-    public ResponseEntity<ResponseDTO> handleParseException(ParseException ex) {
-        ResponseDTO responseDTO = new ResponseDTO(HttpStatus.BAD_REQUEST.value(), ex.getMessage(), null);
+    public ResponseEntity<ResponseDTO<Void>> handleParseException(ParseException ex) {
+        countError(ex, HttpStatus.BAD_REQUEST);
+        ResponseDTO<Void> responseDTO = new ResponseDTO<>(HttpStatus.BAD_REQUEST.value(), ex.getMessage(), null);
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(responseDTO);
     }
     @ExceptionHandler(InvalidDateException.class)
-    public ResponseEntity<ResponseDTO> handleInvalidDateException(InvalidDateException ex) {
-        ResponseDTO responseDTO = new ResponseDTO(HttpStatus.BAD_REQUEST.value(), ex.getMessage(), null);
+    public ResponseEntity<ResponseDTO<Void>> handleInvalidDateException(InvalidDateException ex) {
+        countError(ex, HttpStatus.BAD_REQUEST);
+        ResponseDTO<Void> responseDTO = new ResponseDTO<>(HttpStatus.BAD_REQUEST.value(), ex.getMessage(), null);
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(responseDTO);
+    }
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ResponseDTO<Void>> handleInvalidCursorException(InvalidCursorException ex) {
+        countError(ex, HttpStatus.BAD_REQUEST);
+        ResponseDTO<Void> responseDTO = new ResponseDTO<>(HttpStatus.BAD_REQUEST.value(), ex.getMessage(), null);
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(responseDTO);
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<ResponseDTO<Void>> handlePreconditionFailedException(PreconditionFailedException ex) {
+        countError(ex, HttpStatus.PRECONDITION_FAILED);
+        ResponseDTO<Void> responseDTO = new ResponseDTO<>(HttpStatus.PRECONDITION_FAILED.value(), ex.getMessage(), null);
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(responseDTO);
+    }
+
+    // Two writes of the same book raced and this one lost: the client may re-read the book and retry
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ResponseDTO<Void>> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        countError(ex, HttpStatus.CONFLICT);
+        ResponseDTO<Void> responseDTO = new ResponseDTO<>(HttpStatus.CONFLICT.value(), "Book has been modified concurrently, retry the request.", null);
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(responseDTO);
+    }
+
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<ResponseDTO<Void>> handleBadRequestException(BadRequestException ex) {
+        countError(ex, HttpStatus.BAD_REQUEST);
+        ResponseDTO<Void> responseDTO = new ResponseDTO<>(HttpStatus.BAD_REQUEST.value(), ex.getMessage(), null);
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(responseDTO);
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ResponseDTO<Void>> handleServiceUnavailableException(ServiceUnavailableException ex) {
+        countError(ex, HttpStatus.SERVICE_UNAVAILABLE);
+        ResponseDTO<Void> responseDTO = new ResponseDTO<>(HttpStatus.SERVICE_UNAVAILABLE.value(), ex.getMessage(), null);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").body(responseDTO);
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ResponseDTO<Void>> handleTooManyRequestsException(TooManyRequestsException ex) {
+        countError(ex, HttpStatus.TOO_MANY_REQUESTS);
+        ResponseDTO<Void> responseDTO = new ResponseDTO<>(HttpStatus.TOO_MANY_REQUESTS.value(), ex.getMessage(), null);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").body(responseDTO);
+    }
+
+    // Reactive stack (WebFlux): the equivalents of BindingResult errors and of an unreadable body
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ResponseDTO<Void>> handleWebExchangeBindException(WebExchangeBindException ex) {
+        countError(ex, HttpStatus.BAD_REQUEST);
+        ResponseDTO<Void> responseDTO = new ResponseDTO<>(HttpStatus.BAD_REQUEST.value(), ex.getAllErrors().get(0).getDefaultMessage(), null);
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(responseDTO);
+    }
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<ResponseDTO<Void>> handleServerWebInputException(ServerWebInputException ex) {
+        for (Throwable cause = ex.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof InvalidDateException invalidDate) return handleInvalidDateException(invalidDate);
+        }
+        countError(ex, HttpStatus.BAD_REQUEST);
+        String message = ex.getCause() instanceof DecodingException ? "Invalid JSON format " + ex.getReason() : ex.getReason();
+        ResponseDTO<Void> responseDTO = new ResponseDTO<>(HttpStatus.BAD_REQUEST.value(), message, null);
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(responseDTO);
     }
 }
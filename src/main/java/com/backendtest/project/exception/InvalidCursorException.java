@@ -0,0 +1,15 @@
+package com.backendtest.project.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Custom exception thrown when a pagination cursor cannot be decoded (e.g. tampered or truncated token).
+ * This exception results in a {@link HttpStatus#BAD_REQUEST} HTTP response status.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidCursorException extends RuntimeException{
+    public InvalidCursorException(String e){
+        super(e);
+    }
+}
@@ -0,0 +1,16 @@
+package com.backendtest.project.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Custom exception thrown when the If-Match precondition of a request does not hold, i.e. the book was modified
+ * since the client read it.
+ * This exception results in a {@link HttpStatus#PRECONDITION_FAILED} HTTP response status.
+ */
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class PreconditionFailedException extends RuntimeException{
+    public PreconditionFailedException(String e){
+        super(e);
+    }
+}
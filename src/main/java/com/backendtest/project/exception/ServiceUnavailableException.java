@@ -0,0 +1,15 @@
+package com.backendtest.project.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Custom exception thrown when a request cannot be served yet (e.g. an in-memory index still warming up at startup).
+ * This exception results in a {@link HttpStatus#SERVICE_UNAVAILABLE} HTTP response status.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ServiceUnavailableException extends RuntimeException{
+    public ServiceUnavailableException(String e){
+        super(e);
+    }
+}
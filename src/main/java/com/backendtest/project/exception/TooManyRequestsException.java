@@ -0,0 +1,16 @@
+package com.backendtest.project.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Custom exception thrown when a request cannot be accepted right now because a bounded resource is full,
+ * e.g. the write-behind buffer during an ingestion burst.
+ * This exception results in a {@link HttpStatus#TOO_MANY_REQUESTS} HTTP response status.
+ */
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class TooManyRequestsException extends RuntimeException{
+    public TooManyRequestsException(String e){
+        super(e);
+    }
+}
@@ -0,0 +1,83 @@
+package com.backendtest.project.json;
+
+import com.backendtest.project.model.Book;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Writes a {@link Book} field by field, with pre-encoded field names, instead of going through the reflective bean
+ * serializer: the list endpoints write thousands of books per response. The JSON is the one the bean serializer
+ * writes (id, title, author, publishedDate as an ISO date, isbn, price), without the version and update time.
+ */
+public class BookSerializer extends StdSerializer<Book> {
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString TITLE = new SerializedString("title");
+    private static final SerializedString AUTHOR = new SerializedString("author");
+    private static final SerializedString PUBLISHED_DATE = new SerializedString("publishedDate");
+    private static final SerializedString ISBN = new SerializedString("isbn");
+    private static final SerializedString PRICE = new SerializedString("price");
+
+    public BookSerializer() {
+        super(Book.class);
+    }
+
+    @Override
+    public void serialize(Book book, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(book);
+        writeFields(gen, provider, book.getId(), book.getTitle(), book.getAuthor(), book.getPublishedDate(), book.getIsbn(), book.getPrice());
+        gen.writeEndObject();
+    }
+
+    /**
+     * Writes the fields of a book into the current object; shared with {@link BookViewSerializer}.
+     */
+    static void writeFields(JsonGenerator gen, SerializerProvider provider, Long id, String title, String author,
+                            LocalDate publishedDate, String isbn, BigDecimal price) throws IOException {
+        gen.writeFieldName(ID);
+        if (id == null) gen.writeNull();
+        else gen.writeNumber(id.longValue());
+        gen.writeFieldName(TITLE);
+        gen.writeString(title);
+        gen.writeFieldName(AUTHOR);
+        gen.writeString(author);
+        gen.writeFieldName(PUBLISHED_DATE);
+        writeDate(gen, provider, publishedDate);
+        gen.writeFieldName(ISBN);
+        gen.writeString(isbn);
+        gen.writeFieldName(PRICE);
+        gen.writeNumber(price);
+    }
+
+    /**
+     * Writes a date as "yyyy-MM-dd" into a small character buffer, without formatter or intermediate string.
+     * Mappers writing dates as timestamps keep their own format.
+     */
+    private static void writeDate(JsonGenerator gen, SerializerProvider provider, LocalDate date) throws IOException {
+        int year = date == null ? -1 : date.getYear();
+        if (year < 0 || year > 9999 || provider.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)) {
+            provider.defaultSerializeValue(date, gen);
+            return;
+        }
+        char[] chars = new char[10];
+        writeDigits(chars, 0, year, 4);
+        chars[4] = '-';
+        writeDigits(chars, 5, date.getMonthValue(), 2);
+        chars[7] = '-';
+        writeDigits(chars, 8, date.getDayOfMonth(), 2);
+        gen.writeString(chars, 0, chars.length);
+    }
+
+    private static void writeDigits(char[] chars, int offset, int value, int length) {
+        for (int i = offset + length - 1; i >= offset; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
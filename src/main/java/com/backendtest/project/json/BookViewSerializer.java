@@ -0,0 +1,25 @@
+package com.backendtest.project.json;
+
+import com.backendtest.project.dto.BookView;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link BookView} like {@link BookSerializer} writes a book, so both serialize to the same JSON.
+ */
+public class BookViewSerializer extends StdSerializer<BookView> {
+
+    public BookViewSerializer() {
+        super(BookView.class);
+    }
+
+    @Override
+    public void serialize(BookView book, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(book);
+        BookSerializer.writeFields(gen, provider, book.id(), book.title(), book.author(), book.publishedDate(), book.isbn(), book.price());
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,30 @@
+package com.backendtest.project.json;
+
+import com.backendtest.project.validation.PublishedDateFormat;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.time.LocalDate;
+
+/**
+ * Reads a "MM-dd-yyyy" date with {@link PublishedDateFormat}, directly from the parser's character buffer.
+ * An invalid date fails with an {@link com.backendtest.project.exception.InvalidDateException}.
+ */
+public class PublishedDateDeserializer extends StdScalarDeserializer<LocalDate> {
+
+    public PublishedDateDeserializer() {
+        super(LocalDate.class);
+    }
+
+    @Override
+    public LocalDate deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (!p.hasToken(JsonToken.VALUE_STRING)) {
+            return (LocalDate) ctxt.handleUnexpectedToken(LocalDate.class, p);
+        }
+        return PublishedDateFormat.parse(CharBuffer.wrap(p.getTextCharacters(), p.getTextOffset(), p.getTextLength()));
+    }
+}
@@ -0,0 +1,24 @@
+package com.backendtest.project.json;
+
+import com.backendtest.project.validation.PublishedDateFormat;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdScalarSerializer;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * Writes a date in the "MM-dd-yyyy" format accepted by {@link PublishedDateDeserializer}.
+ */
+public class PublishedDateSerializer extends StdScalarSerializer<LocalDate> {
+
+    public PublishedDateSerializer() {
+        super(LocalDate.class);
+    }
+
+    @Override
+    public void serialize(LocalDate value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeString(PublishedDateFormat.format(value));
+    }
+}
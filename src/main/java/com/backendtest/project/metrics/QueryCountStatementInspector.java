@@ -0,0 +1,37 @@
+package com.backendtest.project.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate {@link StatementInspector} counting the SQL statements prepared by the current thread.
+ * Counting only happens between {@link #start()} and {@link #stop()}, which {@link QueryCountInterceptor}
+ * calls around each HTTP request. Statements are passed through unchanged.
+ */
+public class QueryCountStatementInspector implements StatementInspector {
+    private static final ThreadLocal<int[]> COUNTER = new ThreadLocal<>();
+
+    /**
+     * Starts counting the statements of the current thread from zero.
+     */
+    public static void start() {
+        COUNTER.set(new int[1]);
+    }
+
+    /**
+     * Stops counting for the current thread.
+     *
+     * @return the number of statements prepared since {@link #start()}, or 0 if counting was not started.
+     */
+    public static int stop() {
+        int[] counter = COUNTER.get();
+        COUNTER.remove();
+        return counter == null ? 0 : counter[0];
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] counter = COUNTER.get();
+        if (counter != null) counter[0]++;
+        return sql;
+    }
+}
@@ -1,14 +1,22 @@
 package com.backendtest.project.model;
 
+import com.backendtest.project.config.JpaConfig;
+import com.backendtest.project.json.BookSerializer;
 import com.backendtest.project.validation.BookValidation;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PastOrPresent;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.Date;
 
@@ -16,14 +24,32 @@ import java.util.Date;
  * Represents a Book entity with attributes such as ISBN, title, author, and publication year.
  * Each attribute is annotated with validation constraints to ensure the data's integrity
  * before it is stored in the database.
+ * The same class is mapped by JPA (servlet stack) and by Spring Data R2DBC (reactive profile).
+ *
+ * The composite indexes serve the range filters of {@link com.backendtest.project.service.BookService#findByRange}:
+ * each starts with the filtered and sorted column and ends with the id, so a range filter ordered by
+ * (column, id) and resumed from a keyset cursor is an index range scan.
+ *
+ * Books are written to JSON by {@link BookSerializer}, without reflection.
+ *
+ * Books are kept in the Hibernate second-level cache (region {@value com.backendtest.project.config.JpaConfig#BOOK_REGION}),
+ * so loading a book by id in a new persistence context usually does not reach the database. Books are updated through
+ * the managed entity: a bulk JPQL update of the book table would empty the whole region.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = JpaConfig.BOOK_REGION)
+@JsonSerialize(using = BookSerializer.class)
 @Getter
 @Setter
 @NoArgsConstructor
-@Table(name = "book")
+@Table(name = "book", indexes = {
+        @Index(name = "idx_book_price_id", columnList = "price, id"),
+        @Index(name = "idx_book_published_date_id", columnList = "published_date, id")
+})
 public class Book implements BookValidation {
     @Id
+    @org.springframework.data.annotation.Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     private String title;
@@ -35,6 +61,19 @@ public class Book implements BookValidation {
     private String isbn;
     @Column(scale = 2)
     private BigDecimal price;
+    /**
+     * Incremented by every update, which only applies if the row still has the version read (optimistic locking).
+     * Sent to clients as the ETag of the book rather than in its body.
+     */
+    @Version
+    @JsonIgnore
+    private long version;
+    /**
+     * Time of the last insert or update, sent to clients as the Last-Modified date of the book.
+     */
+    @UpdateTimestamp
+    @JsonIgnore
+    private Instant updatedAt;
 
     public Book(long id, String title, String author, String isbn, BigDecimal bigDecimal) {
         this.title = title;
@@ -0,0 +1,69 @@
+package com.backendtest.project.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * A create, update or delete of a book, recorded in the outbox table {@code book_change} by the transaction that
+ * made it, so the change is stored if and only if it is committed.
+ * Changes are ordered by their sequence number; created and updated books carry the state written, deleted books only
+ * their id.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "book_change", indexes = @Index(name = "idx_book_change_occurred_at", columnList = "occurred_at"))
+public class BookChange {
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long seq;
+    @Column(nullable = false)
+    private Long bookId;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Type type;
+    @Column(nullable = false)
+    private Instant occurredAt;
+    private String title;
+    private String author;
+    private LocalDate publishedDate;
+    private String isbn;
+    @Column(scale = 2)
+    private BigDecimal price;
+
+    /**
+     * @param type {@link Type#CREATED} or {@link Type#UPDATED}.
+     * @param book the book as written, with its id.
+     */
+    public static BookChange of(Type type, Book book) {
+        BookChange change = new BookChange();
+        change.setBookId(book.getId());
+        change.setType(type);
+        change.setOccurredAt(Instant.now());
+        change.setTitle(book.getTitle());
+        change.setAuthor(book.getAuthor());
+        change.setPublishedDate(book.getPublishedDate());
+        change.setIsbn(book.getIsbn());
+        change.setPrice(book.getPrice());
+        return change;
+    }
+
+    public static BookChange deleted(Long bookId) {
+        BookChange change = new BookChange();
+        change.setBookId(bookId);
+        change.setType(Type.DELETED);
+        change.setOccurredAt(Instant.now());
+        return change;
+    }
+}
@@ -0,0 +1,24 @@
+package com.backendtest.project.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * The single-row {@code replica_heartbeat} table, in which
+ * {@link com.backendtest.project.config.ReadWriteRoutingDataSource} writes the current time on the primary to measure
+ * the lag of the read replicas. It is only mapped so that it is created with the rest of the schema; the heartbeat
+ * itself is written and read with plain JDBC.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "replica_heartbeat")
+public class ReplicaHeartbeat {
+    @Id
+    private Integer id;
+    @Column(nullable = false)
+    private long beatMillis;
+}
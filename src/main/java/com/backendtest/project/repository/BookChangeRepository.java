@@ -0,0 +1,29 @@
+package com.backendtest.project.repository;
+
+import com.backendtest.project.model.BookChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface BookChangeRepository extends JpaRepository<BookChange, Long> {
+    /**
+     * Changes following the given sequence number, in sequence order.
+     * Sequence numbers are assigned when a change is inserted, not when it is committed: the result may miss a change
+     * that is still being committed while a later one already is (see {@code BookChangeServiceImpl}).
+     *
+     * @param seq the sequence number of the last change already read, 0 for the first one.
+     */
+    @Query("select c from BookChange c where c.seq > :seq order by c.seq")
+    List<BookChange> findAfter(@Param("seq") long seq, Limit limit);
+
+    @Modifying
+    @Query("delete from BookChange c where c.occurredAt < :before")
+    int deleteOccurredBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,22 @@
+package com.backendtest.project.repository;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repository fragment reading only some columns of the books, for the {@code fields} parameter of the list endpoints.
+ */
+public interface BookFieldsRepository {
+
+    /**
+     * Reads the given fields of the books with an id greater than {@code afterId}, in id order.
+     * Only the selected columns are read, and no entity is instantiated.
+     *
+     * @param fields the names of the fields to read, from {@link com.backendtest.project.dto.BookView#FIELDS}.
+     * @param afterId the rows returned have an id greater than this one; 0 for every row.
+     * @param offset the number of rows to skip.
+     * @param limit the maximum number of rows to return, or a negative number for no limit.
+     * @return one map per book, with the id followed by the requested fields in the order they were given.
+     */
+    List<Map<String, Object>> findFields(List<String> fields, long afterId, int offset, int limit);
+}
@@ -0,0 +1,53 @@
+package com.backendtest.project.repository;
+
+import com.backendtest.project.model.Book;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Criteria tuple query implementation of {@link BookFieldsRepository}.
+ */
+public class BookFieldsRepositoryImpl implements BookFieldsRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findFields(List<String> fields, long afterId, int offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Book> book = query.from(Book.class);
+        // The id is always read: it orders the rows and is the keyset cursor of the next page
+        List<String> columns = new ArrayList<>(fields.size() + 1);
+        columns.add("id");
+        for (String field : fields) {
+            if (!columns.contains(field)) columns.add(field);
+        }
+        List<Selection<?>> selections = new ArrayList<>(columns.size());
+        for (String column : columns) selections.add(book.get(column).alias(column));
+        query.multiselect(selections)
+                .where(cb.greaterThan(book.get("id"), afterId))
+                .orderBy(cb.asc(book.get("id")));
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query).setFirstResult(offset);
+        if (limit >= 0) typedQuery.setMaxResults(limit);
+
+        List<Tuple> tuples = typedQuery.getResultList();
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (String column : columns) row.put(column, tuple.get(column));
+            rows.add(row);
+        }
+        return rows;
+    }
+}
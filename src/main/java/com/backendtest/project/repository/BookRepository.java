@@ -1,19 +1,136 @@
 package com.backendtest.project.repository;
 
+import com.backendtest.project.config.JpaConfig;
+import com.backendtest.project.dto.BookVersion;
+import com.backendtest.project.dto.BookView;
 import com.backendtest.project.model.Book;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_MODE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_REGION;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book>, BookFieldsRepository {
+    /**
+     * Number of rows the JDBC driver fetches per round-trip while streaming.
+     * With MySQL this only takes effect when the connection uses {@code useCursorFetch=true}.
+     */
+    String STREAM_FETCH_SIZE = "500";
+
+    /**
+     * Finds the book with the given ISBN. The result is kept in the query cache until the book table changes.
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = JpaConfig.BOOK_QUERY_REGION)
+    })
     Optional<Book> findByIsbn(String isbn);
+
+    List<Book> findAllByIsbnIn(Collection<String> isbns);
+
+    /**
+     * Reads only the version and last update time of a book, to answer conditional requests.
+     * Read-only like {@link #findById}, so it is served by a read replica unless called in a read-write transaction.
+     */
+    @Transactional(readOnly = true)
+    @Query("select new com.backendtest.project.dto.BookVersion(b.version, b.updatedAt) from Book b where b.id = :id")
+    Optional<BookVersion> findVersionById(@Param("id") Long id);
     @Override
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = JpaConfig.BOOK_QUERY_REGION)
+    })
     Page<Book> findAll(Pageable pageable);
 
     List<Book> findAll();
+
+    /**
+     * Every book as a {@link BookView}, in id order, up to the given limit.
+     */
+    @Query("select new com.backendtest.project.dto.BookView(b.id, b.title, b.author, b.publishedDate, b.isbn, b.price) " +
+            "from Book b order by b.id")
+    List<BookView> findAllViews(Limit limit);
+
+    /**
+     * Page of books as {@link BookView}s, without the extra count query issued for a {@link Page}.
+     * Read-only on its own, as it is called outside of a service transaction. Pages are kept in the query cache until
+     * the book table changes.
+     */
+    @Transactional(readOnly = true)
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = JpaConfig.BOOK_QUERY_REGION)
+    })
+    @Query("select new com.backendtest.project.dto.BookView(b.id, b.title, b.author, b.publishedDate, b.isbn, b.price) " +
+            "from Book b")
+    Slice<BookView> findViewsBy(Pageable pageable);
+
+    /**
+     * Keyset (seek) page of {@link BookView}s: the rows following the given id, using the primary key index
+     * instead of skipping an OFFSET. Pages are kept in the query cache until the book table changes.
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = JpaConfig.BOOK_QUERY_REGION)
+    })
+    @Query("select new com.backendtest.project.dto.BookView(b.id, b.title, b.author, b.publishedDate, b.isbn, b.price) " +
+            "from Book b where b.id > :id order by b.id")
+    List<BookView> findViewsAfter(@Param("id") Long id, Limit limit);
+
+    /**
+     * Streams every book ordered by id through a forward-only cursor.
+     * Must be consumed inside a transaction and closed once done.
+     */
+    @Query("select b from Book b order by b.id")
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HINT_READ_ONLY, value = "true"),
+            // Do not flush the hot books out of the second-level cache with the whole table
+            @QueryHint(name = HINT_CACHE_MODE, value = "IGNORE")
+    })
+    Stream<Book> streamAll();
+
+    /**
+     * Streams the (id, ISBN) pair of every book, used to warm {@link com.backendtest.project.cache.IsbnIndex}.
+     */
+    @Query("select b.id as id, b.isbn as isbn from Book b")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    Stream<IdAndIsbn> streamIdAndIsbn();
+
+    interface IdAndIsbn {
+        Long getId();
+        String getIsbn();
+    }
+
+    /**
+     * Streams the id, title and author of every book, used to warm {@link com.backendtest.project.cache.BookSearchIndex}.
+     */
+    @Query("select b.id as id, b.title as title, b.author as author from Book b")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    Stream<SearchFields> streamSearchFields();
+
+    interface SearchFields {
+        Long getId();
+        String getTitle();
+        String getAuthor();
+    }
 }
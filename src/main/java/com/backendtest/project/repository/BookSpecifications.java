@@ -0,0 +1,73 @@
+package com.backendtest.project.repository;
+
+import com.backendtest.project.dto.BookRangeFilter;
+import com.backendtest.project.model.Book;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link Specification}s used with {@link BookRepository} for the range filters on price and published date.
+ */
+public final class BookSpecifications {
+
+    private BookSpecifications() {
+    }
+
+    /**
+     * Books within the bounds of the filter.
+     *
+     * @param filter the range filter; null bounds are ignored.
+     * @return the specification.
+     */
+    public static Specification<Book> inRange(BookRangeFilter filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            Path<BigDecimal> price = root.get("price");
+            Path<LocalDate> publishedDate = root.get("publishedDate");
+            if (filter.getMinPrice() != null) predicates.add(cb.greaterThanOrEqualTo(price, filter.getMinPrice()));
+            if (filter.getMaxPrice() != null) predicates.add(cb.lessThanOrEqualTo(price, filter.getMaxPrice()));
+            if (filter.getPublishedFrom() != null) predicates.add(cb.greaterThanOrEqualTo(publishedDate, filter.getPublishedFrom()));
+            if (filter.getPublishedTo() != null) predicates.add(cb.lessThanOrEqualTo(publishedDate, filter.getPublishedTo()));
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    /**
+     * Books following the row with the given key and id in (sort column, id) order.
+     * The condition is written as {@code key >= :key and (key > :key or id > :id)} rather than a plain disjunction,
+     * so the database can still use the leading column of the composite index as a range.
+     *
+     * @param field the sort column.
+     * @param direction the sort direction.
+     * @param key the value of the sort column of the last returned row.
+     * @param id the id of the last returned row.
+     * @return the specification.
+     */
+    public static <T extends Comparable<? super T>> Specification<Book> after(BookRangeFilter.SortField field,
+                                                                             Sort.Direction direction, T key, long id) {
+        return (root, query, cb) -> {
+            Path<T> column = root.get(field.getAttribute());
+            Path<Long> idColumn = root.get("id");
+            if (direction.isAscending()) {
+                return cb.and(cb.greaterThanOrEqualTo(column, key),
+                        cb.or(cb.greaterThan(column, key), cb.greaterThan(idColumn, id)));
+            }
+            return cb.and(cb.lessThanOrEqualTo(column, key),
+                    cb.or(cb.lessThan(column, key), cb.lessThan(idColumn, id)));
+        };
+    }
+
+    /**
+     * @return the (sort column, id) order matching the composite indexes of {@link Book}.
+     */
+    public static Sort orderBy(BookRangeFilter.SortField field, Sort.Direction direction) {
+        return Sort.by(direction, field.getAttribute(), "id");
+    }
+}
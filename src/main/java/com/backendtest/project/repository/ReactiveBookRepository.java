@@ -0,0 +1,52 @@
+package com.backendtest.project.repository;
+
+import com.backendtest.project.model.Book;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * R2DBC counterpart of {@link BookRepository}, used by the reactive profile.
+ */
+@Repository
+public interface ReactiveBookRepository extends R2dbcRepository<Book, Long> {
+    Mono<Book> findByIsbn(String isbn);
+
+    /**
+     * Updates all columns of a book in a single statement, without loading it first, and increments its version.
+     *
+     * @return the number of updated rows (0 if no book has the given id).
+     */
+    @Modifying
+    @Query("update book set title = :title, author = :author, published_date = :publishedDate, " +
+            "isbn = :isbn, price = :price, version = version + 1, updated_at = :updatedAt where id = :id")
+    Mono<Integer> updateBook(@Param("id") Long id, @Param("title") String title, @Param("author") String author,
+                             @Param("publishedDate") LocalDate publishedDate, @Param("isbn") String isbn,
+                             @Param("price") BigDecimal price, @Param("updatedAt") Instant updatedAt);
+
+    /**
+     * Offset page ordered by id.
+     */
+    @Query("select * from book order by id limit :limit offset :offset")
+    Flux<Book> findPage(@Param("limit") int limit, @Param("offset") long offset);
+
+    /**
+     * Keyset (seek) page: the rows following the given id, using the primary key index
+     * instead of skipping an OFFSET.
+     */
+    @Query("select * from book where id > :id order by id limit :limit")
+    Flux<Book> findPageAfter(@Param("id") long id, @Param("limit") int limit);
+
+    /**
+     * Every book ordered by id, emitted as rows are read: the driver only reads ahead as far as subscribers request.
+     */
+    Flux<Book> findAllByOrderByIdAsc();
+}
@@ -0,0 +1,9 @@
+package com.backendtest.project.service;
+
+import com.backendtest.project.dto.BookChangePage;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface BookChangeService {
+    BookChangePage findChanges(long since, int limit);
+    SseEmitter subscribe(long since);
+}
@@ -0,0 +1,11 @@
+package com.backendtest.project.service;
+
+import com.backendtest.project.dto.BookImportResult;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface BookImportService {
+    BookImportResult importBooks(InputStream inputStream, MediaType contentType) throws IOException;
+}
@@ -1,17 +1,35 @@
 package com.backendtest.project.service;
 
+import com.backendtest.project.dto.BookCursorPage;
+import com.backendtest.project.dto.BookLookup;
+import com.backendtest.project.dto.BookPage;
+import com.backendtest.project.dto.BookRangeFilter;
 import com.backendtest.project.dto.BookUpsertRequest;
+import com.backendtest.project.dto.BookVersion;
+import com.backendtest.project.dto.BookView;
 import com.backendtest.project.model.Book;
 import org.springframework.data.domain.Pageable;
 
 import java.text.ParseException;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public interface BookService {
     Book createAndUpdateBook(BookUpsertRequest createBookRequest) throws ParseException;
+    Book createAndUpdateBook(BookUpsertRequest createBookRequest, Long expectedVersion) throws ParseException;
+    List<Book> createAndUpdateBooks(List<BookUpsertRequest> bookUpsertRequests);
     Book findById(Long id);
-    List<Book> findAll();
-    Map<String, Object> findAllWithPagination(Pageable pageable);
+    List<BookLookup> findByIds(List<Long> ids);
+    BookVersion findVersion(Long id);
+    List<BookView> findAll();
+    List<Map<String, Object>> findAll(List<String> fields);
+    void streamAll(Consumer<Book> consumer);
+    BookPage<BookView> findAllWithPagination(Pageable pageable, boolean withTotal);
+    BookPage<Map<String, Object>> findAllWithPagination(Pageable pageable, boolean withTotal, List<String> fields);
+    BookCursorPage<BookView> findAllAfter(String after, int size);
+    BookCursorPage<Map<String, Object>> findAllAfter(String after, int size, List<String> fields);
+    BookCursorPage<Book> findByRange(BookRangeFilter filter, String after, int size);
+    List<Book> search(String query, int limit);
     void deleteById(Long id);
 }
@@ -0,0 +1,9 @@
+package com.backendtest.project.service;
+
+import com.backendtest.project.dto.BookUpsertRequest;
+
+public interface BookWriteBehindService {
+    void enqueue(BookUpsertRequest bookUpsertRequest);
+    int flush();
+    int pendingCount();
+}
@@ -0,0 +1,234 @@
+package com.backendtest.project.service.Impl;
+
+import com.backendtest.project.dto.BookChangePage;
+import com.backendtest.project.exception.BadRequestException;
+import com.backendtest.project.model.BookChange;
+import com.backendtest.project.repository.BookChangeRepository;
+import com.backendtest.project.service.BookChangeService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Change feed of the books, read from the {@link BookChange} outbox written by {@link BookServiceImpl} and the bulk import.
+ * Consumers keep the sequence number of the last change they applied and ask for the following ones, instead of
+ * re-reading the whole catalog; they can also subscribe to a Server-Sent Events stream fed by a periodic poll.
+ *
+ * Sequence numbers are assigned at insert, not at commit: a long transaction (e.g. an import batch) can commit its
+ * changes after a later single-book write. Changes are therefore only served up to the first missing sequence number,
+ * so a consumer never moves past a change that is not visible yet. A missing number is skipped once it has been missing
+ * for the gap timeout: its transaction rolled back, or the database left a hole in the sequence. Changes older than the
+ * retention are purged: a consumer that has been away longer must re-read the catalog.
+ *
+ * Events are written to the streams by a dedicated pool, not by the scheduler thread, so a slow client neither delays
+ * the other streams beyond the pool size nor the other scheduled tasks. A stream still sending is skipped by the poll
+ * and catches up on its own once done.
+ */
+@Slf4j
+@Service
+@Profile("!reactive")
+public class BookChangeServiceImpl implements BookChangeService {
+    private static final int STREAM_BATCH_SIZE = 500;
+
+    private final BookChangeRepository bookChangeRepository;
+    private final Duration gapTimeout;
+    private final Duration retention;
+    private final Duration streamTimeout;
+    private final Executor sendExecutor;
+    // When each missing sequence number was first seen missing, by the first missing number of the gap
+    private final Map<Long, Instant> gaps = new ConcurrentHashMap<>();
+    // Open streams, with the sequence number of the last change sent to each
+    private final Map<SseEmitter, Subscription> subscribers = new ConcurrentHashMap<>();
+
+    /**
+     * State of an open stream: the sequence number of the last change sent, and whether a send is in progress.
+     */
+    private record Subscription(AtomicLong lastSent, AtomicBoolean sending) {
+    }
+
+    @Autowired
+    public BookChangeServiceImpl(BookChangeRepository bookChangeRepository,
+                                 @Value("${app.books.changes.gap-timeout:PT1M}") Duration gapTimeout,
+                                 @Value("${app.books.changes.retention:P7D}") Duration retention,
+                                 @Value("${app.books.changes.stream-timeout:PT30M}") Duration streamTimeout,
+                                 @Value("${app.books.changes.send-threads:4}") int sendThreads) {
+        this(bookChangeRepository, gapTimeout, retention, streamTimeout,
+                Executors.newFixedThreadPool(sendThreads, new CustomizableThreadFactory("book-changes-")));
+    }
+
+    public BookChangeServiceImpl(BookChangeRepository bookChangeRepository, Duration gapTimeout, Duration retention,
+                                 Duration streamTimeout, Executor sendExecutor) {
+        this.bookChangeRepository = bookChangeRepository;
+        this.gapTimeout = gapTimeout;
+        this.retention = retention;
+        this.streamTimeout = streamTimeout;
+        this.sendExecutor = sendExecutor;
+    }
+
+    /**
+     * Retrieves the changes following the given sequence number.
+     *
+     * @param since the sequence number of the last change already applied, 0 to start from the oldest retained one.
+     * @param limit the maximum number of changes to return.
+     * @return the changes, with the since of the next call.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public BookChangePage findChanges(long since, int limit) {
+        if (limit < 1) throw new BadRequestException("Limit must not be less than one");
+        return page(since, limit);
+    }
+
+    /**
+     * Opens a stream of the changes following the given sequence number. Each change is sent as an event named after
+     * its type, with its sequence number as event id. The stream is closed after the stream timeout, and the client
+     * resumes from the last event id it received.
+     *
+     * @param since the sequence number of the last change already applied.
+     */
+    @Override
+    public SseEmitter subscribe(long since) {
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        subscribers.put(emitter, new Subscription(new AtomicLong(since), new AtomicBoolean()));
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(e -> subscribers.remove(emitter));
+        return emitter;
+    }
+
+    /**
+     * Hands the new changes to every open stream not still sending. The changes are read once, from the least advanced
+     * of these streams; a stream that receives a full batch reads the following ones itself, on the send pool.
+     */
+    @Scheduled(fixedDelayString = "${app.books.changes.poll-interval:PT1S}")
+    public void publish() {
+        Map<SseEmitter, Subscription> idle = new HashMap<>();
+        subscribers.forEach((emitter, subscription) -> {
+            if (!subscription.sending().get()) idle.put(emitter, subscription);
+        });
+        if (idle.isEmpty()) return;
+        long from = idle.values().stream().mapToLong(subscription -> subscription.lastSent().get()).min().orElse(0L);
+        BookChangePage page = page(from, STREAM_BATCH_SIZE);
+        if (page.changes().isEmpty()) return;
+        idle.forEach((emitter, subscription) -> {
+            if (!subscription.sending().compareAndSet(false, true)) return;
+            try {
+                sendExecutor.execute(() -> stream(emitter, subscription, page));
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+                subscription.sending().set(false);
+            }
+        });
+    }
+
+    private void stream(SseEmitter emitter, Subscription subscription, BookChangePage page) {
+        try {
+            BookChangePage batch = page;
+            while (send(emitter, subscription.lastSent(), batch.changes()) && batch.hasMore()) {
+                batch = page(subscription.lastSent().get(), STREAM_BATCH_SIZE);
+            }
+        } finally {
+            subscription.sending().set(false);
+        }
+    }
+
+    /**
+     * @return whether the stream is still open.
+     */
+    private boolean send(SseEmitter emitter, AtomicLong lastSent, List<BookChange> changes) {
+        try {
+            for (BookChange change : changes) {
+                if (change.getSeq() <= lastSent.get()) continue;
+                emitter.send(SseEmitter.event()
+                        .id(String.valueOf(change.getSeq()))
+                        .name(change.getType().name().toLowerCase())
+                        .data(change, MediaType.APPLICATION_JSON));
+                lastSent.set(change.getSeq());
+            }
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // The client went away
+            subscribers.remove(emitter);
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private BookChangePage page(long since, int limit) {
+        List<BookChange> changes = contiguousAfter(since, limit);
+        long nextSince = changes.isEmpty() ? since : changes.get(changes.size() - 1).getSeq();
+        return new BookChangePage(changes, nextSince, changes.size() == limit);
+    }
+
+    /**
+     * Reads the changes following the given sequence number, up to the first missing one that has not been missing for
+     * the gap timeout yet. From 0, the first change is taken as the start of the sequence.
+     */
+    private List<BookChange> contiguousAfter(long since, int limit) {
+        List<BookChange> changes = bookChangeRepository.findAfter(since, Limit.of(limit));
+        long expected = since + 1;
+        for (int i = 0; i < changes.size(); i++) {
+            long seq = changes.get(i).getSeq();
+            if (seq == expected) {
+                gaps.remove(expected);
+            } else if (since > 0 || i > 0) {
+                if (!gapExpired(expected, seq)) return changes.subList(0, i);
+            }
+            expected = seq + 1;
+        }
+        return changes;
+    }
+
+    /**
+     * @return whether the sequence numbers from {@code missing} to {@code next} (excluded) have been missing for the gap
+     *         timeout, in which case they are given up.
+     */
+    private boolean gapExpired(long missing, long next) {
+        Instant now = Instant.now();
+        Instant firstSeen = gaps.computeIfAbsent(missing, seq -> now);
+        if (Duration.between(firstSeen, now).compareTo(gapTimeout) < 0) return false;
+        gaps.remove(missing);
+        log.warn("Skipping book change sequence numbers {} to {}, still not committed after {}", missing, next - 1, gapTimeout);
+        return true;
+    }
+
+    /**
+     * Deletes the changes older than the retention.
+     */
+    @Scheduled(fixedDelayString = "${app.books.changes.purge-interval:PT1H}")
+    @Transactional
+    public void purge() {
+        int purged = bookChangeRepository.deleteOccurredBefore(Instant.now().minus(retention));
+        // Gaps no consumer has reached since
+        gaps.values().removeIf(firstSeen -> firstSeen.isBefore(Instant.now().minus(retention)));
+        if (purged > 0) log.info("Purged {} book changes older than {}", purged, retention);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (sendExecutor instanceof ExecutorService executor) executor.shutdownNow();
+    }
+}
@@ -0,0 +1,295 @@
+package com.backendtest.project.service.Impl;
+
+import com.backendtest.project.cache.BookCache;
+import com.backendtest.project.cache.BookCountCache;
+import com.backendtest.project.cache.BookPageCache;
+import com.backendtest.project.cache.BookSearchIndex;
+import com.backendtest.project.cache.IsbnIndex;
+import com.backendtest.project.dto.BookImportResult;
+import com.backendtest.project.dto.BookUpsertRequest;
+import com.backendtest.project.service.BookImportService;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Imports large book feeds (JSON array, NDJSON or CSV with a header row) without going through JPA.
+ * Rows are read one at a time from the request stream, validated with the same constraints as
+ * {@link BookUpsertRequest}, and inserted with JDBC batches of {@code app.books.import.batch-size} rows,
+ * each batch in its own transaction. With {@code rewriteBatchedStatements=true} MySQL receives each batch
+ * as a multi-row INSERT.
+ * Invalid rows are reported individually and never abort the rest of the import.
+ */
+@Slf4j
+@Service
+@Profile("!reactive")
+@Timed(value = "book.service", description = "Latency of book service methods")
+public class BookImportServiceImpl implements BookImportService {
+    private static final String INSERT_SQL = "insert into book (title, author, published_date, isbn, price, version, updated_at) values (?, ?, ?, ?, ?, 0, ?)";
+    private static final String INSERT_CHANGE_SQL = "insert into book_change (book_id, type, occurred_at, title, author, published_date, isbn, price) values (?, 'CREATED', ?, ?, ?, ?, ?, ?)";
+    // Same convention as Hibernate for Instant columns: the timestamp is written in UTC
+    private static final Calendar UTC = Calendar.getInstance(TimeZone.getTimeZone(ZoneOffset.UTC));
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    private final ObjectMapper objectMapper;
+    private final CsvMapper csvMapper;
+    private final Validator validator;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final IsbnIndex isbnIndex;
+    private final BookCountCache bookCountCache;
+    private final BookCache bookCache;
+    private final BookPageCache bookPageCache;
+    private final BookSearchIndex bookSearchIndex;
+    private final SessionFactory sessionFactory;
+    private final int batchSize;
+
+    public BookImportServiceImpl(ObjectMapper objectMapper, Validator validator, JdbcTemplate jdbcTemplate,
+                                 TransactionTemplate transactionTemplate, IsbnIndex isbnIndex,
+                                 BookCountCache bookCountCache, BookCache bookCache, BookPageCache bookPageCache,
+                                 BookSearchIndex bookSearchIndex, SessionFactory sessionFactory,
+                                 @Value("${app.books.import.batch-size:1000}") int batchSize) {
+        this.objectMapper = objectMapper;
+        this.csvMapper = CsvMapper.builder()
+                .enable(CsvParser.Feature.EMPTY_STRING_AS_NULL)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+        this.validator = validator;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.isbnIndex = isbnIndex;
+        this.bookCountCache = bookCountCache;
+        this.bookCache = bookCache;
+        this.bookPageCache = bookPageCache;
+        this.bookSearchIndex = bookSearchIndex;
+        this.sessionFactory = sessionFactory;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * A validated row waiting to be written with the next batch.
+     */
+    private record PendingRow(long row, BookUpsertRequest request) {
+    }
+
+    /**
+     * Imports every book of the given feed.
+     *
+     * @param inputStream the feed, read sequentially and never buffered as a whole.
+     * @param contentType {@code application/json} (array or concatenated objects), {@code application/x-ndjson} or {@code text/csv}.
+     * @return the number of received, imported and rejected rows, with the reason for each rejected row.
+     * @throws IOException if the feed cannot be read.
+     */
+    @Override
+    public BookImportResult importBooks(InputStream inputStream, MediaType contentType) throws IOException {
+        BookImportResult result = new BookImportResult();
+        List<PendingRow> batch = new ArrayList<>(batchSize);
+        Set<String> importedIsbns = new HashSet<>();
+        try (MappingIterator<BookUpsertRequest> rows = readerFor(contentType).readValues(inputStream)) {
+            while (true) {
+                long row = result.getReceived() + 1;
+                BookUpsertRequest request;
+                try {
+                    if (!rows.hasNextValue()) break;
+                    result.setReceived(row);
+                    request = rows.nextValue();
+                } catch (JsonParseException e) {
+                    // The stream cannot be resynchronized after a syntax error
+                    result.setReceived(row);
+                    result.addError(row, null, "Malformed input, import stopped: " + e.getOriginalMessage());
+                    break;
+                } catch (JsonMappingException e) {
+                    result.addError(row, null, "Invalid row: " + e.getOriginalMessage());
+                    continue;
+                }
+                PendingRow pending = validate(row, request, importedIsbns, result);
+                if (pending == null) continue;
+                batch.add(pending);
+                if (batch.size() >= batchSize) flush(batch, result);
+            }
+        }
+        flush(batch, result);
+        log.info("Imported {} of {} books ({} rejected)", result.getImported(), result.getReceived(), result.getFailed());
+        return result;
+    }
+
+    private ObjectReader readerFor(MediaType contentType) {
+        if (contentType != null && TEXT_CSV.includes(contentType)) {
+            return csvMapper.readerFor(BookUpsertRequest.class).with(CsvSchema.emptySchema().withHeader());
+        }
+        return objectMapper.readerFor(BookUpsertRequest.class);
+    }
+
+    /**
+     * Applies the {@link BookUpsertRequest} constraints and the checks of
+     * {@link com.backendtest.project.service.BookService#createAndUpdateBook(BookUpsertRequest)}.
+     *
+     * @return the row ready to be written, or null if it was rejected (the error is added to the result).
+     */
+    private PendingRow validate(long row, BookUpsertRequest request, Set<String> importedIsbns, BookImportResult result) {
+        if (request == null) {
+            result.addError(row, null, "Empty row");
+            return null;
+        }
+        String isbn = request.getIsbn();
+        Set<ConstraintViolation<BookUpsertRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            result.addError(row, isbn, violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; ")));
+            return null;
+        }
+        if (request.getBookId() != null) {
+            result.addError(row, isbn, "Import only creates books, bookId must not be set");
+            return null;
+        }
+        if (!request.getPublishedDate().isBefore(LocalDate.now())) {
+            result.addError(row, isbn, "Published date must be in the past or present");
+            return null;
+        }
+        if (!importedIsbns.add(IsbnIndex.normalize(isbn))) {
+            result.addError(row, isbn, "Duplicate ISBN in import.");
+            return null;
+        }
+        if (isbnIndex.isWarm() && isbnIndex.findId(isbn).isPresent()) {
+            result.addError(row, isbn, "Book with ISBN has already existed.");
+            return null;
+        }
+        return new PendingRow(row, request);
+    }
+
+    /**
+     * Writes the pending rows as one batch. If the batch fails (e.g. an ISBN inserted meanwhile by another writer),
+     * its rows are retried one by one so only the offending rows are rejected.
+     */
+    private void flush(List<PendingRow> batch, BookImportResult result) {
+        if (batch.isEmpty()) return;
+        try {
+            List<Long> ids = transactionTemplate.execute(status -> insert(batch));
+            onInserted(batch, ids, result);
+        } catch (DataAccessException batchFailure) {
+            log.debug("Import batch failed, retrying row by row", batchFailure);
+            for (PendingRow pending : batch) {
+                try {
+                    List<Long> ids = transactionTemplate.execute(status -> insert(List.of(pending)));
+                    onInserted(List.of(pending), ids, result);
+                } catch (DataIntegrityViolationException e) {
+                    result.addError(pending.row(), pending.request().getIsbn(), "Book with ISBN has already existed.");
+                } catch (DataAccessException e) {
+                    result.addError(pending.row(), pending.request().getIsbn(), e.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+        batch.clear();
+    }
+
+    private List<Long> insert(List<PendingRow> rows) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        PendingRow pending = rows.get(i);
+                        BookUpsertRequest request = pending.request();
+                        ps.setString(1, request.getTitle());
+                        ps.setString(2, request.getAuthor());
+                        ps.setDate(3, Date.valueOf(request.getPublishedDate()));
+                        ps.setString(4, request.getIsbn());
+                        ps.setBigDecimal(5, request.getPrice());
+                        ps.setTimestamp(6, now, UTC);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                }, keyHolder);
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (Map<String, Object> keys : keyHolder.getKeyList()) {
+            ids.add(((Number) keys.values().iterator().next()).longValue());
+        }
+        if (ids.size() != rows.size()) {
+            // Rolls the batch back: without an id per row, the books could not be indexed nor recorded as changes
+            throw new IncorrectResultSizeDataAccessException("Expected one generated key per inserted book", rows.size(), ids.size());
+        }
+        insertChanges(rows, ids);
+        return ids;
+    }
+
+    /**
+     * Records the created books in the change outbox, in the transaction of their insert.
+     */
+    private void insertChanges(List<PendingRow> rows, List<Long> ids) {
+        // Taken after the books are written, as close as possible to the commit
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(INSERT_CHANGE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                BookUpsertRequest request = rows.get(i).request();
+                ps.setLong(1, ids.get(i));
+                ps.setTimestamp(2, now, UTC);
+                ps.setString(3, request.getTitle());
+                ps.setString(4, request.getAuthor());
+                ps.setDate(5, Date.valueOf(request.getPublishedDate()));
+                ps.setString(6, request.getIsbn());
+                ps.setBigDecimal(7, request.getPrice());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    private void onInserted(List<PendingRow> rows, List<Long> ids, BookImportResult result) {
+        for (int i = 0; i < rows.size(); i++) {
+            Long id = ids.get(i);
+            BookUpsertRequest request = rows.get(i).request();
+            isbnIndex.put(id, request.getIsbn());
+            bookSearchIndex.put(id, request.getTitle(), request.getAuthor());
+            // Drops a cached "not found" entry for an id that has just been assigned
+            bookCache.evict(id);
+        }
+        bookCountCache.increment(rows.size());
+        bookPageCache.invalidateAll();
+        // The rows are inserted with JDBC, which Hibernate does not see: the cached findByIsbn and page results are stale
+        sessionFactory.getCache().evictQueryRegions();
+        result.setImported(result.getImported() + rows.size());
+    }
+}
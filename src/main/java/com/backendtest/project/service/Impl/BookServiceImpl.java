@@ -1,36 +1,102 @@
 package com.backendtest.project.service.Impl;
 
+import com.backendtest.project.cache.BookCache;
+import com.backendtest.project.cache.BookCountCache;
+import com.backendtest.project.cache.BookPageCache;
+import com.backendtest.project.cache.BookSearchIndex;
+import com.backendtest.project.cache.IsbnIndex;
+import com.backendtest.project.dto.BookCursorPage;
+import com.backendtest.project.dto.BookLookup;
+import com.backendtest.project.dto.BookPage;
+import com.backendtest.project.dto.BookRangeFilter;
 import com.backendtest.project.dto.BookUpsertRequest;
+import com.backendtest.project.dto.BookVersion;
+import com.backendtest.project.dto.BookView;
 import com.backendtest.project.exception.AlreadyExistException;
+import com.backendtest.project.exception.BadRequestException;
+import com.backendtest.project.exception.InvalidCursorException;
 import com.backendtest.project.exception.InvalidDateException;
 import com.backendtest.project.exception.NotFoundException;
+import com.backendtest.project.exception.PreconditionFailedException;
+import com.backendtest.project.exception.ServiceUnavailableException;
 import com.backendtest.project.model.Book;
+import com.backendtest.project.model.BookChange;
+import com.backendtest.project.repository.BookChangeRepository;
 import com.backendtest.project.repository.BookRepository;
+import com.backendtest.project.repository.BookSpecifications;
 import com.backendtest.project.service.BookService;
+import com.backendtest.project.util.AfterCommit;
+import com.backendtest.project.util.CursorCodec;
+import com.backendtest.project.util.SingleFlight;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
+@Profile("!reactive")
 @RequiredArgsConstructor
+@Timed(value = "book.service", description = "Latency of book service methods")
 public class BookServiceImpl implements BookService {
+    /**
+     * Most ids accepted by {@link #findByIds}.
+     */
+    public static final int MAX_LOOKUP_IDS = 1000;
+    /**
+     * Most books returned at once by {@link #findAll()} and {@link #findAll(List)}; larger catalogs are read by page.
+     */
+    public static final int MAX_LIST_BOOKS = 10000;
+    /**
+     * Most ids bound in one {@code IN (...)} query, to stay clear of the statement size and parameter limits.
+     */
+    private static final int IN_CHUNK_SIZE = 500;
+
     private final BookRepository bookRepository;
+    private final BookChangeRepository bookChangeRepository;
+    private final EntityManager entityManager;
+    private final BookCountCache bookCountCache;
+    private final BookCache bookCache;
+    private final BookPageCache bookPageCache;
+    private final IsbnIndex isbnIndex;
+    private final BookSearchIndex bookSearchIndex;
+    private final SingleFlight singleFlight;
+    private final TransactionTemplate transactionTemplate;
+
+    // The generation of the book cache keeps a caller from joining a read started before the last eviction
+    private record BookKey(Long id, long generation) {
+    }
+
+    // The generation of the page cache keeps a caller from joining a read started before the last write
+    private record PageKey(Pageable pageable, boolean withTotal, long generation) {
+    }
+
     /**
-     * Converts a string in "MM-dd-yyyy" format to a {@link LocalDate} object.
-     *
-     * @param dateStr the date string in "MM-dd-yyyy" format.
-     * @return the corresponding {@link LocalDate} object.
+     * Runs a read in a read-write transaction, so it goes to the primary even when read replicas are configured.
+     * Used for the results kept in the caches and for the validators of conditional requests: read from a lagging
+     * replica right after a write, a stale book would be served for the time-to-live of the cache, or reported as
+     * not modified.
      */
-    private LocalDate convertStringToDate(String dateStr) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM-dd-yyyy");
-        return LocalDate.parse(dateStr, formatter);
+    private <T> T readFromPrimary(Supplier<T> read) {
+        return transactionTemplate.execute(status -> read.get());
     }
 
     /**
@@ -44,12 +110,36 @@ public class BookServiceImpl implements BookService {
         return date.isBefore(currentDate);
     }
 
+    /**
+     * Checks that no other book than the given one owns the ISBN.
+     * Uses the in-memory {@link IsbnIndex}; the database is only queried when the index is not warm yet
+     * or reports a conflict, to confirm it is not stale.
+     *
+     * @param isbn the ISBN to check.
+     * @param bookId the id of the book being updated, or null for a new book.
+     * @throws AlreadyExistException if another book already has the ISBN.
+     */
+    private void checkIsbnAvailable(String isbn, Long bookId) {
+        if (isbnIndex.isWarm()) {
+            Optional<Long> ownerId = isbnIndex.findId(isbn);
+            if (ownerId.isEmpty() || ownerId.get().equals(bookId)) return;
+        }
+        Optional<Book> foundBook = bookRepository.findByIsbn(isbn);
+        if (foundBook.isPresent() && !Objects.equals(bookId, foundBook.get().getId())) throw new AlreadyExistException("Book with ISBN has already existed.");
+    }
+
     /**
      * Creates or updates a book based on the provided {@link BookUpsertRequest}.
      * If a book with the provided ISBN already exists, an {@link AlreadyExistException} is thrown.
      * If a book ID is provided, it updates the existing book, otherwise, it creates a new one.
      * The published date must be in the past or present, otherwise an {@link InvalidDateException} is thrown.
      *
+     * Duplicate ISBNs are detected through {@link IsbnIndex}, so a create is a single INSERT statement. An update loads
+     * the book (usually from the second-level cache) and writes it with an UPDATE conditional on its version.
+     * A duplicate that slips past the index (e.g. written concurrently) is rejected by the unique constraint on ISBN.
+     * The change is recorded as a {@link BookChange} in the same transaction; the caches and indexes are only updated
+     * once it has committed.
+     *
      * @param bookUpsertRequest the request containing book details.
      * @return the saved or updated {@link Book}.
      * @throws ParseException if the published date cannot be parsed.
@@ -58,29 +148,145 @@ public class BookServiceImpl implements BookService {
      * @throws InvalidDateException if the published date is in the future.
      */
     @Override
+    @Transactional
     public Book createAndUpdateBook(BookUpsertRequest bookUpsertRequest) throws ParseException {
-        Book savedBook = new Book();
-        // Find and check bookId if it exists in RequestBody
-        if(bookUpsertRequest.getBookId() != null){
-            savedBook = bookRepository.findById(bookUpsertRequest.getBookId()).orElseThrow(() -> new NotFoundException("Book not found."));
-        }
-        // Find and check existing ISBN if true throw error
-        Optional<Book> foundBook = bookRepository.findByIsbn(bookUpsertRequest.getIsbn());
-        if (foundBook.isPresent() && !Objects.equals(savedBook.getId(), foundBook.get().getId())) throw new AlreadyExistException("Book with ISBN has already existed.");
-        savedBook.setAuthor(bookUpsertRequest.getAuthor());
-        savedBook.setIsbn(bookUpsertRequest.getIsbn());
-        savedBook.setPrice(bookUpsertRequest.getPrice());
-        savedBook.setTitle(bookUpsertRequest.getTitle());
+        return createAndUpdateBook(bookUpsertRequest, null);
+    }
+
+    /**
+     * Same as {@link #createAndUpdateBook(BookUpsertRequest)}, updating the book only if it still has the given version
+     * (optimistic locking through the If-Match header).
+     *
+     * @param expectedVersion the version the book must have to be updated, or null to update any version.
+     *                        Ignored when creating a book.
+     * @throws PreconditionFailedException if the book exists but has another version.
+     */
+    @Override
+    @Transactional
+    public Book createAndUpdateBook(BookUpsertRequest bookUpsertRequest, Long expectedVersion) throws ParseException {
+        Long bookId = bookUpsertRequest.getBookId();
+        // Check existing ISBN if true throw error
+        checkIsbnAvailable(bookUpsertRequest.getIsbn(), bookId);
         // Check publish date in RequestBody before save it to database
-        if(!isDateInThePastOrPresent(convertStringToDate(bookUpsertRequest.getPublishedDate()))){
+        if(!isDateInThePastOrPresent(bookUpsertRequest.getPublishedDate())){
             throw new InvalidDateException("Published date must be in the past or present");
         }
-        savedBook.setPublishedDate(convertStringToDate(bookUpsertRequest.getPublishedDate()));
-        return bookRepository.save(savedBook);
+        Book savedBook;
+        try {
+            if (bookId == null) {
+                savedBook = bookRepository.save(applyTo(new Book(), bookUpsertRequest));
+                AfterCommit.run(() -> bookCountCache.increment(1));
+            } else {
+                // Updated through the managed entity rather than a bulk statement, so that only this book is evicted
+                // from the second-level cache; @Version makes the update conditional on the version read here
+                Book book = bookRepository.findById(bookId).orElseThrow(() -> new NotFoundException("Book not found."));
+                if (expectedVersion != null && book.getVersion() != expectedVersion) {
+                    throw new PreconditionFailedException("Book has been modified since version " + expectedVersion + ".");
+                }
+                savedBook = bookRepository.saveAndFlush(applyTo(book, bookUpsertRequest));
+            }
+        } catch (DataIntegrityViolationException e) {
+            throw new AlreadyExistException("Book with ISBN has already existed.");
+        } catch (OptimisticLockingFailureException e) {
+            // Modified by another transaction between the read and the update; without an expected version, reported
+            // as a conflict (409) by GlobalExceptionHandler
+            if (expectedVersion == null) throw e;
+            throw new PreconditionFailedException("Book has been modified since version " + expectedVersion + ".");
+        }
+        bookChangeRepository.save(BookChange.of(bookId == null ? BookChange.Type.CREATED : BookChange.Type.UPDATED, savedBook));
+        Book committedBook = savedBook;
+        AfterCommit.run(() -> {
+            isbnIndex.put(committedBook.getId(), committedBook.getIsbn());
+            bookSearchIndex.put(committedBook);
+            // Also drops a cached "not found" entry for an id that has just been assigned
+            bookCache.evict(committedBook.getId());
+            bookPageCache.invalidateAll();
+        });
+        return savedBook;
     }
 
     /**
-     * Finds a book by its ID.
+     * Creates or updates several books in one transaction.
+     * Instead of looking up each item, all referenced book ids and all submitted ISBNs are resolved with one
+     * {@code IN (...)} query each, so a batch costs a constant number of lookups whatever its size.
+     * Updates are applied to the loaded entities and flushed together as JDBC batches.
+     *
+     * @param bookUpsertRequests the books to create (without bookId) or update (with bookId).
+     * @return the saved or updated books, in request order.
+     * @throws NotFoundException if a book ID is provided but the book is not found.
+     * @throws AlreadyExistException if two items share an ISBN or book ID, or an ISBN belongs to another book.
+     * @throws InvalidDateException if a published date is in the future.
+     */
+    @Override
+    @Transactional
+    public List<Book> createAndUpdateBooks(List<BookUpsertRequest> bookUpsertRequests) {
+        // Detect collisions inside the batch itself
+        Set<String> batchIsbns = new HashSet<>();
+        Set<Long> batchIds = new HashSet<>();
+        for (BookUpsertRequest request : bookUpsertRequests) {
+            if (!batchIsbns.add(IsbnIndex.normalize(request.getIsbn()))) throw new AlreadyExistException("ISBN " + request.getIsbn() + " is used more than once in the batch.");
+            if (request.getBookId() != null && !batchIds.add(request.getBookId())) throw new AlreadyExistException("Book " + request.getBookId() + " is updated more than once in the batch.");
+            if (!isDateInThePastOrPresent(request.getPublishedDate())) throw new InvalidDateException("Published date must be in the past or present");
+        }
+        // Resolve every referenced book and every ISBN owner with one query each
+        Map<Long, Book> booksById = new HashMap<>();
+        if (!batchIds.isEmpty()) bookRepository.findAllById(batchIds).forEach(book -> booksById.put(book.getId(), book));
+        List<String> isbns = bookUpsertRequests.stream().map(BookUpsertRequest::getIsbn).toList();
+        Map<String, Long> ownerIdsByIsbn = new HashMap<>();
+        bookRepository.findAllByIsbnIn(isbns).forEach(book -> ownerIdsByIsbn.put(IsbnIndex.normalize(book.getIsbn()), book.getId()));
+
+        List<Book> books = new ArrayList<>(bookUpsertRequests.size());
+        List<Book> newBooks = new ArrayList<>();
+        for (BookUpsertRequest request : bookUpsertRequests) {
+            Long ownerId = ownerIdsByIsbn.get(IsbnIndex.normalize(request.getIsbn()));
+            if (ownerId != null && !ownerId.equals(request.getBookId())) throw new AlreadyExistException("Book with ISBN " + request.getIsbn() + " has already existed.");
+            Book book;
+            if (request.getBookId() == null) {
+                book = new Book();
+                newBooks.add(book);
+            } else {
+                book = booksById.get(request.getBookId());
+                if (book == null) throw new NotFoundException("Book not found.");
+            }
+            books.add(applyTo(book, request));
+        }
+        try {
+            bookRepository.saveAll(newBooks);
+            bookRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw new AlreadyExistException("Book with ISBN has already existed.");
+        }
+        List<BookChange> changes = new ArrayList<>(books.size());
+        for (int i = 0; i < books.size(); i++) {
+            BookChange.Type type = bookUpsertRequests.get(i).getBookId() == null ? BookChange.Type.CREATED : BookChange.Type.UPDATED;
+            changes.add(BookChange.of(type, books.get(i)));
+        }
+        bookChangeRepository.saveAll(changes);
+        AfterCommit.run(() -> {
+            for (Book book : books) {
+                isbnIndex.put(book.getId(), book.getIsbn());
+                bookSearchIndex.put(book);
+                bookCache.evict(book.getId());
+            }
+            bookCountCache.increment(newBooks.size());
+            bookPageCache.invalidateAll();
+        });
+        return books;
+    }
+
+    private static Book applyTo(Book book, BookUpsertRequest request) {
+        book.setAuthor(request.getAuthor());
+        book.setIsbn(request.getIsbn());
+        book.setPrice(request.getPrice());
+        book.setTitle(request.getTitle());
+        book.setPublishedDate(request.getPublishedDate());
+        return book;
+    }
+
+    /**
+     * Finds a book by its ID, served from {@link BookCache} when possible.
+     * On a miss, concurrent lookups of the same id share one query ({@link SingleFlight}), unless a book was evicted
+     * from the cache in between.
      * If the book is not found, a {@link NotFoundException} is thrown.
      *
      * @param id the ID of the book to find.
@@ -89,35 +295,263 @@ public class BookServiceImpl implements BookService {
      */
     @Override
     public Book findById(Long id) {
-        return bookRepository.findById(id).orElseThrow(()-> new NotFoundException("Book not found."));
+        return bookCache.get(id, key -> singleFlight.execute("book", new BookKey(key, bookCache.generation()),
+                        () -> readFromPrimary(() -> bookRepository.findById(key))))
+                .orElseThrow(()-> new NotFoundException("Book not found."));
+    }
+
+    /**
+     * Finds several books by id, served from {@link BookCache} when possible.
+     * The ids missing from the cache are read with one {@code IN (...)} query per {@value #IN_CHUNK_SIZE} ids, instead of
+     * one query per id; ids without a book are cached as missing like in {@link #findById}.
+     *
+     * @param ids the ids to look up; they may repeat.
+     * @return one {@link BookLookup} per requested id, in request order, with a not-found marker for unknown ids.
+     * @throws BadRequestException if more than {@value #MAX_LOOKUP_IDS} ids are requested or an id is null.
+     */
+    @Override
+    public List<BookLookup> findByIds(List<Long> ids) {
+        if (ids.size() > MAX_LOOKUP_IDS) throw new BadRequestException("At most " + MAX_LOOKUP_IDS + " ids can be requested at once");
+        if (ids.stream().anyMatch(Objects::isNull)) throw new BadRequestException("Ids must not contain null");
+        Map<Long, Optional<Book>> books = bookCache.getAll(ids, this::loadByIds);
+        List<BookLookup> lookups = new ArrayList<>(ids.size());
+        for (Long id : ids) lookups.add(BookLookup.of(id, books.get(id).orElse(null)));
+        return lookups;
+    }
+
+    private Map<Long, Book> loadByIds(Set<Long> ids) {
+        List<Long> remaining = new ArrayList<>(ids);
+        Map<Long, Book> booksById = new HashMap<>(ids.size());
+        for (int from = 0; from < remaining.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = remaining.subList(from, Math.min(from + IN_CHUNK_SIZE, remaining.size()));
+            readFromPrimary(() -> bookRepository.findAllById(chunk)).forEach(book -> booksById.put(book.getId(), book));
+        }
+        return booksById;
+    }
+
+    /**
+     * Finds the version and last update time of a book, to answer conditional requests without loading the book:
+     * from {@link BookCache} when the book is cached, otherwise with a query reading only these two columns.
+     *
+     * @param id the ID of the book.
+     * @return the version of the book.
+     * @throws NotFoundException if the book with the given ID does not exist.
+     */
+    @Override
+    public BookVersion findVersion(Long id) {
+        Optional<Book> cached = bookCache.peek(id);
+        if (cached.isPresent()) return BookVersion.of(cached.get());
+        return readFromPrimary(() -> bookRepository.findVersionById(id)).orElseThrow(() -> new NotFoundException("Book not found."));
     }
 
     /**
      * Retrieves all books from the repository.
+     * Books are read as {@link BookView} projections, so no entity is hydrated or tracked. The result is cached by the
+     * controller, so it is read from the primary.
      *
-     * @return a list of all {@link Book} objects.
+     * @return a list of all books, in id order.
+     * @throws BadRequestException if there are more than {@value #MAX_LIST_BOOKS} books.
      */
     @Override
-    public List<Book> findAll() {
-        return bookRepository.findAll();
+    public List<BookView> findAll() {
+        return checkListSize(readFromPrimary(() -> bookRepository.findAllViews(Limit.of(MAX_LIST_BOOKS + 1))));
+    }
+
+    /**
+     * Retrieves the given fields of all books; only the corresponding columns are read.
+     *
+     * @param fields the names of the fields to return, from {@link BookView#FIELDS}.
+     * @return one map per book in id order, with the id followed by the requested fields.
+     * @throws BadRequestException if a field is unknown, or if there are more than {@value #MAX_LIST_BOOKS} books.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> findAll(List<String> fields) {
+        return checkListSize(bookRepository.findFields(checkFields(fields), 0L, 0, MAX_LIST_BOOKS + 1));
+    }
+
+    /**
+     * @param books the books read, at most one more than {@value #MAX_LIST_BOOKS}.
+     * @throws BadRequestException if there are more than {@value #MAX_LIST_BOOKS} books.
+     */
+    private static <T> List<T> checkListSize(List<T> books) {
+        if (books.size() > MAX_LIST_BOOKS) {
+            throw new BadRequestException("More than " + MAX_LIST_BOOKS + " books, read them with /books-pagination or /books/export");
+        }
+        return books;
+    }
+
+    /**
+     * @throws BadRequestException if a field is not one of {@link BookView#FIELDS}.
+     */
+    private static List<String> checkFields(List<String> fields) {
+        for (String field : fields) {
+            if (!BookView.FIELDS.contains(field)) {
+                throw new BadRequestException("Unknown field " + field + ", fields must be among " + String.join(", ", BookView.FIELDS));
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Streams all books to the given consumer one row at a time through a database cursor.
+     * Each book is detached from the persistence context once consumed, so memory usage
+     * stays constant regardless of the number of rows in the table.
+     *
+     * @param consumer the callback receiving each {@link Book} in id order.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<Book> consumer) {
+        try (Stream<Book> books = bookRepository.streamAll()) {
+            books.forEach(book -> {
+                consumer.accept(book);
+                entityManager.detach(book);
+            });
+        }
     }
 
     /**
      * Retrieves a paginated list of books along with the total count.
+     * The page is loaded as a {@link Slice}, so only one query is issued; the total comes from {@link BookCountCache}.
+     * Concurrent requests for the same page share that query ({@link SingleFlight}) unless a write invalidated the
+     * {@link BookPageCache} in between; the method is not transactional, so that they do not hold a connection while
+     * waiting. The page is cached by the controller, so it is read from the
+     * primary.
      *
      * @param pageable the pagination information (page, size, sorting).
-     * @return a map containing the total count of books from the repository and the list of books for the current page.
-     *         The map contains:
-     *         - "totalCount" (total number of page)
-     *         - "data" (list of books for the current page)
+     * @param withTotal whether to include the total number of books in the response.
+     * @return the books of the page, whether another page follows, and the total number of books when withTotal is true.
+     */
+    @Override
+    public BookPage<BookView> findAllWithPagination(Pageable pageable, boolean withTotal) {
+        return singleFlight.execute("page", new PageKey(pageable, withTotal, bookPageCache.generation()), () -> {
+            Slice<BookView> data = readFromPrimary(() -> bookRepository.findViewsBy(pageable));
+            return new BookPage<>(withTotal ? bookCountCache.get() : null, data.hasNext(), data.getContent());
+        });
+    }
+
+    /**
+     * Same as {@link #findAllWithPagination(Pageable, boolean)}, with only the given fields of each book.
+     * Pages are in id order.
+     *
+     * @param fields the names of the fields to return, from {@link BookView#FIELDS}.
+     * @throws BadRequestException if a field is unknown.
      */
     @Override
-    public Map<String, Object> findAllWithPagination(Pageable pageable) {
-        Page<Book> data = bookRepository.findAll(pageable);
-        Map<String, Object> res = new HashMap<>();
-        res.put("totalCount", data.getNumberOfElements());
-        res.put("data", data.getContent());
-        return res;
+    @Transactional(readOnly = true)
+    public BookPage<Map<String, Object>> findAllWithPagination(Pageable pageable, boolean withTotal, List<String> fields) {
+        // Fetch one extra row to know whether another page follows
+        List<Map<String, Object>> rows = bookRepository.findFields(checkFields(fields), 0L,
+                Math.toIntExact(pageable.getOffset()), pageable.getPageSize() + 1);
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        return new BookPage<>(withTotal ? bookCountCache.get() : null, hasNext, hasNext ? rows.subList(0, pageable.getPageSize()) : rows);
+    }
+
+    /**
+     * Retrieves a page of books using keyset (seek) pagination ordered by id.
+     * Every page costs the same index range scan regardless of how deep the client has paged.
+     *
+     * @param after the cursor returned with the previous page, or null/blank for the first page.
+     * @param size the number of books per page.
+     * @return the books of the page, and the cursor of the following page (null when this is the last page).
+     * @throws com.backendtest.project.exception.InvalidCursorException if the cursor cannot be decoded.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public BookCursorPage<BookView> findAllAfter(String after, int size) {
+        long lastId = decodeAfter(after, size);
+        // Fetch one extra row to know whether another page follows
+        List<BookView> books = bookRepository.findViewsAfter(lastId, Limit.of(size + 1));
+        boolean hasNext = books.size() > size;
+        List<BookView> data = hasNext ? books.subList(0, size) : books;
+        return new BookCursorPage<>(data, hasNext ? CursorCodec.encodeId(data.get(data.size() - 1).id()) : null);
+    }
+
+    /**
+     * Same as {@link #findAllAfter(String, int)}, with only the given fields of each book.
+     *
+     * @param fields the names of the fields to return, from {@link BookView#FIELDS}.
+     * @throws BadRequestException if a field is unknown.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public BookCursorPage<Map<String, Object>> findAllAfter(String after, int size, List<String> fields) {
+        long lastId = decodeAfter(after, size);
+        List<Map<String, Object>> rows = bookRepository.findFields(checkFields(fields), lastId, 0, size + 1);
+        boolean hasNext = rows.size() > size;
+        List<Map<String, Object>> data = hasNext ? rows.subList(0, size) : rows;
+        return new BookCursorPage<>(data, hasNext ? CursorCodec.encodeId((Long) data.get(data.size() - 1).get("id")) : null);
+    }
+
+    private static long decodeAfter(String after, int size) {
+        if (size < 1) throw new BadRequestException("Page size must not be less than one");
+        return (after == null || after.isBlank()) ? 0L : CursorCodec.decodeId(after);
+    }
+
+    /**
+     * Retrieves a page of books within a price and published date range, ordered by the chosen column and then by id.
+     * Pages are resumed with a keyset cursor holding the (column, id) pair of the last returned book, so with the
+     * composite indexes declared on {@link Book} every page is an index range scan, however deep the client pages.
+     *
+     * @param filter the price and published date bounds, sort column and direction.
+     * @param after the cursor returned with the previous page, or null/blank for the first page.
+     * @param size the number of books per page.
+     * @return the books of the page, and the cursor of the following page (null when this is the last page).
+     * @throws com.backendtest.project.exception.InvalidCursorException if the cursor cannot be decoded.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public BookCursorPage<Book> findByRange(BookRangeFilter filter, String after, int size) {
+        if (size < 1) throw new BadRequestException("Page size must not be less than one");
+        BookRangeFilter.SortField sortBy = filter.getSortBy();
+        Specification<Book> spec = BookSpecifications.inRange(filter);
+        if (after != null && !after.isBlank()) {
+            String[] keys = CursorCodec.decode(after, 2);
+            try {
+                long lastId = Long.parseLong(keys[1]);
+                spec = spec.and(sortBy == BookRangeFilter.SortField.PRICE
+                        ? BookSpecifications.after(sortBy, filter.getDirection(), new BigDecimal(keys[0]), lastId)
+                        : BookSpecifications.after(sortBy, filter.getDirection(), LocalDate.parse(keys[0]), lastId));
+            } catch (NumberFormatException | DateTimeParseException e) {
+                throw new InvalidCursorException("Invalid cursor.");
+            }
+        }
+        // Fetch one extra row to know whether another page follows
+        List<Book> books = bookRepository.findBy(spec, query -> query
+                .sortBy(BookSpecifications.orderBy(sortBy, filter.getDirection()))
+                .limit(size + 1)
+                .all());
+        boolean hasNext = books.size() > size;
+        List<Book> data = hasNext ? books.subList(0, size) : books;
+        if (!hasNext) return new BookCursorPage<>(data, null);
+        Book last = data.get(data.size() - 1);
+        Object key = sortBy == BookRangeFilter.SortField.PRICE ? last.getPrice() : last.getPublishedDate();
+        return new BookCursorPage<>(data, CursorCodec.encode(key, last.getId()));
+    }
+
+    /**
+     * Searches books by title and author through {@link BookSearchIndex}: every word of the query must match the start
+     * of a word of the title or the author, ignoring case and accents. Only the matching books are read, by primary key.
+     *
+     * @param query the words to search for.
+     * @param limit the maximum number of books to return.
+     * @return the matching books in id order, or an empty list if the query has no words.
+     * @throws ServiceUnavailableException if the search index is still warming up.
+     */
+    @Override
+    public List<Book> search(String query, int limit) {
+        if (!bookSearchIndex.isWarm()) throw new ServiceUnavailableException("Search index is warming up, retry shortly.");
+        long[] ids = bookSearchIndex.search(query, limit);
+        if (ids.length == 0) return List.of();
+        Map<Long, Book> booksById = new HashMap<>();
+        bookRepository.findAllById(Arrays.stream(ids).boxed().toList()).forEach(book -> booksById.put(book.getId(), book));
+        List<Book> books = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            Book book = booksById.get(id);
+            if (book != null) books.add(book);
+        }
+        return books;
     }
 
     /**
@@ -128,9 +562,18 @@ public class BookServiceImpl implements BookService {
      * @throws NotFoundException if the book with the given ID does not exist.
      */
     @Override
+    @Transactional
     public void deleteById(Long id) {
         Book foundBook = bookRepository.findById(id).orElseThrow(()-> new NotFoundException("Book not found."));
         bookRepository.delete(foundBook);
+        bookChangeRepository.save(BookChange.deleted(id));
+        AfterCommit.run(() -> {
+            bookCountCache.decrement(1);
+            bookCache.evict(id);
+            isbnIndex.remove(id);
+            bookSearchIndex.remove(id);
+            bookPageCache.invalidateAll();
+        });
     }
 
 
@@ -0,0 +1,404 @@
+package com.backendtest.project.service.Impl;
+
+import com.backendtest.project.cache.IsbnIndex;
+import com.backendtest.project.dto.BookUpsertRequest;
+import com.backendtest.project.exception.InvalidDateException;
+import com.backendtest.project.exception.TooManyRequestsException;
+import com.backendtest.project.service.BookService;
+import com.backendtest.project.service.BookWriteBehindService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Write-behind mode of {@link BookService#createAndUpdateBook}: upserts are acknowledged once they are buffered in
+ * memory and appended to a local journal, and written to the database in batches by a background flush.
+ *
+ * - The buffer holds at most {@code capacity} books; an upsert beyond it is rejected with {@link TooManyRequestsException}.
+ * - Upserts are coalesced per ISBN: a book upserted again before the flush only keeps its latest state.
+ * - Batches go through {@link BookService#createAndUpdateBooks}. A rejected batch is retried book by book, and books
+ *   that cannot be written (duplicate ISBN, unknown id...) are dropped with a warning. When the database is unreachable
+ *   the books are kept and retried at the next flush.
+ * - The journal is replayed at startup, so upserts acknowledged but not written survive a restart. Without fsync they
+ *   survive a crash of the process, not of the machine. A book written just before a crash may be replayed: updates are
+ *   re-applied and creates are rejected as duplicates.
+ * - The journal is a base file holding the books pending at the last compaction, followed by numbered segments of the
+ *   upserts appended since. After each flush, appends switch to a new segment; the base is then rewritten with the
+ *   books pending at the switch, and the older segments are deleted. Only the switch holds the lock shared with
+ *   {@link #enqueue}: the rewrite and its fsync do not delay upserts, and no file I/O is done while holding a monitor,
+ *   which would pin a virtual thread to its carrier.
+ */
+@Slf4j
+@Service
+@Profile("!reactive")
+public class BookWriteBehindServiceImpl implements BookWriteBehindService, MeterBinder {
+    private final BookService bookService;
+    private final ObjectMapper objectMapper;
+    private final int capacity;
+    private final int batchSize;
+    private final Path journalPath;
+    private final boolean fsync;
+
+    // Pending upserts by normalized ISBN, in arrival order, and the journal segment receiving their appends with its
+    // number; all guarded by lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, BookUpsertRequest> pending = new LinkedHashMap<>();
+    private FileChannel segment;
+    private long generation;
+    // Only one flush at a time (scheduled flushes and the final one at shutdown)
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicLong flushed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public BookWriteBehindServiceImpl(BookService bookService, ObjectMapper objectMapper,
+                                      @Value("${app.books.write-behind.capacity:10000}") int capacity,
+                                      @Value("${app.books.write-behind.batch-size:500}") int batchSize,
+                                      @Value("${app.books.write-behind.journal:data/book-write-behind.journal}") Path journalPath,
+                                      @Value("${app.books.write-behind.fsync:false}") boolean fsync) {
+        this.bookService = bookService;
+        this.objectMapper = objectMapper;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.journalPath = journalPath;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Loads the upserts left in the journal by the previous run; they are written by the first flush.
+     */
+    @PostConstruct
+    public void replay() throws IOException {
+        Path directory = journalPath.toAbsolutePath().getParent();
+        if (directory != null) Files.createDirectories(directory);
+        lock.lock();
+        try {
+            if (Files.exists(journalPath)) replay(journalPath);
+            for (Path file : segments()) {
+                replay(file);
+                generation = Math.max(generation, segmentNumber(file));
+            }
+        } finally {
+            lock.unlock();
+        }
+        compact();
+        if (pendingCount() > 0) log.info("Replayed {} pending book upserts from {}", pendingCount(), journalPath);
+    }
+
+    // Callers hold lock
+    private void replay(Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                try {
+                    BookUpsertRequest request = objectMapper.readValue(line, BookUpsertRequest.class);
+                    pending.put(IsbnIndex.normalize(request.getIsbn()), request);
+                } catch (IOException | RuntimeException e) {
+                    // Typically the last line, cut by a crash while it was appended
+                    log.warn("Skipping unreadable write-behind journal entry: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Buffers an upsert, to be written by a later flush.
+     *
+     * @param bookUpsertRequest the validated book to create (without bookId) or update.
+     * @throws InvalidDateException if the published date is in the future.
+     * @throws TooManyRequestsException if the buffer is full.
+     */
+    @Override
+    public void enqueue(BookUpsertRequest bookUpsertRequest) {
+        if (!bookUpsertRequest.getPublishedDate().isBefore(LocalDate.now())) {
+            throw new InvalidDateException("Published date must be in the past or present");
+        }
+        byte[] entry = journalEntry(bookUpsertRequest);
+        String isbn = IsbnIndex.normalize(bookUpsertRequest.getIsbn());
+        FileChannel appendedTo;
+        lock.lock();
+        try {
+            if (!pending.containsKey(isbn) && pending.size() >= capacity) {
+                throw new TooManyRequestsException("Write buffer is full, retry shortly.");
+            }
+            appendedTo = segment;
+            append(appendedTo, entry);
+            pending.put(isbn, bookUpsertRequest);
+        } finally {
+            lock.unlock();
+        }
+        if (fsync) force(appendedTo);
+    }
+
+    /**
+     * Writes every buffered upsert to the database, batch by batch, then compacts the journal.
+     *
+     * @return the number of books written.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${app.books.write-behind.flush-interval:PT0.5S}")
+    public int flush() {
+        flushLock.lock();
+        try {
+            long flushedBefore = flushed.get();
+            List<BookUpsertRequest> batch = take();
+            if (batch.isEmpty()) return 0;
+            while (!batch.isEmpty()) {
+                List<BookUpsertRequest> unwritten = write(batch);
+                if (!unwritten.isEmpty()) {
+                    requeue(unwritten);
+                    break;
+                }
+                batch = take();
+            }
+            compact();
+            return Math.toIntExact(flushed.get() - flushedBefore);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public int pendingCount() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        flush();
+        lock.lock();
+        try {
+            segment.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the books the database could not be reached for, to be retried; empty when the batch is done.
+     */
+    private List<BookUpsertRequest> write(List<BookUpsertRequest> batch) {
+        try {
+            bookService.createAndUpdateBooks(batch);
+            flushed.addAndGet(batch.size());
+            return List.of();
+        } catch (RuntimeException e) {
+            if (isUnavailable(e)) {
+                log.warn("Database unavailable, {} book upserts kept for the next flush: {}", batch.size(), e.getMessage());
+                return batch;
+            }
+        }
+        // One book of the batch is rejected: write them one by one to keep the others
+        for (int i = 0; i < batch.size(); i++) {
+            BookUpsertRequest request = batch.get(i);
+            try {
+                bookService.createAndUpdateBook(request);
+                flushed.incrementAndGet();
+            } catch (RuntimeException | ParseException e) {
+                if (isUnavailable(e)) return batch.subList(i, batch.size());
+                failed.incrementAndGet();
+                log.warn("Dropping buffered upsert of book with ISBN {}: {}", request.getIsbn(), e.getMessage());
+            }
+        }
+        return List.of();
+    }
+
+    private static boolean isUnavailable(Exception e) {
+        return e instanceof TransientDataAccessException || e instanceof DataAccessResourceFailureException
+                || e instanceof RecoverableDataAccessException || e instanceof CannotCreateTransactionException;
+    }
+
+    private List<BookUpsertRequest> take() {
+        lock.lock();
+        try {
+            List<BookUpsertRequest> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+            Iterator<BookUpsertRequest> iterator = pending.values().iterator();
+            while (batch.size() < batchSize && iterator.hasNext()) {
+                batch.add(iterator.next());
+                iterator.remove();
+            }
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Puts back books that could not be written, ahead of the others, unless a newer upsert of the same ISBN arrived.
+     */
+    private void requeue(List<BookUpsertRequest> unwritten) {
+        lock.lock();
+        try {
+            Map<String, BookUpsertRequest> newer = new LinkedHashMap<>(pending);
+            pending.clear();
+            for (BookUpsertRequest request : unwritten) pending.put(IsbnIndex.normalize(request.getIsbn()), request);
+            pending.putAll(newer);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private byte[] journalEntry(BookUpsertRequest request) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(request);
+            byte[] entry = new byte[json.length + 1];
+            System.arraycopy(json, 0, entry, 0, json.length);
+            entry[json.length] = '\n';
+            return entry;
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Callers hold lock
+    private static void append(FileChannel channel, byte[] entry) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(entry);
+            while (buffer.hasRemaining()) channel.write(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void force(FileChannel channel) {
+        try {
+            channel.force(false);
+        } catch (ClosedChannelException e) {
+            // The segment was retired by a compaction, which forced a base holding the upsert before closing it
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Switches appends to a new segment, then replaces the base of the journal with the books pending at the switch
+     * and deletes the older segments. The base is swapped atomically and the older segments are only deleted once it
+     * is in place, so a crash at any point leaves a journal whose replay ends with every pending upsert.
+     */
+    private void compact() {
+        List<BookUpsertRequest> snapshot;
+        FileChannel retired;
+        long current;
+        lock.lock();
+        try {
+            FileChannel next = FileChannel.open(segmentPath(generation + 1), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            snapshot = new ArrayList<>(pending.values());
+            retired = segment;
+            segment = next;
+            current = ++generation;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+        try {
+            Path next = journalPath.resolveSibling(journalPath.getFileName() + ".next");
+            try (FileChannel channel = FileChannel.open(next, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (BookUpsertRequest request : snapshot) {
+                    ByteBuffer buffer = ByteBuffer.wrap(journalEntry(request));
+                    while (buffer.hasRemaining()) channel.write(buffer);
+                }
+                channel.force(false);
+            }
+            Files.move(next, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            for (Path file : segments()) {
+                if (segmentNumber(file) < current) Files.delete(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            closeQuietly(retired);
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Cannot close a write-behind journal segment: {}", e.getMessage());
+        }
+    }
+
+    private Path segmentPath(long number) {
+        return journalPath.resolveSibling(journalPath.getFileName() + "." + number);
+    }
+
+    private static long segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(name.lastIndexOf('.') + 1));
+    }
+
+    /**
+     * @return the segments of the journal, oldest first.
+     */
+    private List<Path> segments() throws IOException {
+        Path directory = journalPath.toAbsolutePath().getParent();
+        String prefix = journalPath.getFileName() + ".";
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(prefix) && name.length() > prefix.length()
+                                && name.substring(prefix.length()).chars().allMatch(Character::isDigit);
+                    })
+                    .sorted(Comparator.comparingLong(BookWriteBehindServiceImpl::segmentNumber))
+                    .toList();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("book.write_behind.pending", this, BookWriteBehindServiceImpl::pendingCount)
+                .description("Book upserts buffered and not written yet")
+                .register(registry);
+        FunctionCounter.builder("book.write_behind.flushed", flushed, AtomicLong::get)
+                .description("Buffered book upserts written to the database")
+                .register(registry);
+        FunctionCounter.builder("book.write_behind.failed", failed, AtomicLong::get)
+                .description("Buffered book upserts dropped because the database rejected them")
+                .register(registry);
+    }
+}
@@ -0,0 +1,162 @@
+package com.backendtest.project.service.Impl;
+
+import com.backendtest.project.dto.BookCursorPage;
+import com.backendtest.project.dto.BookPage;
+import com.backendtest.project.dto.BookUpsertRequest;
+import com.backendtest.project.exception.AlreadyExistException;
+import com.backendtest.project.exception.BadRequestException;
+import com.backendtest.project.exception.InvalidDateException;
+import com.backendtest.project.exception.NotFoundException;
+import com.backendtest.project.model.Book;
+import com.backendtest.project.repository.ReactiveBookRepository;
+import com.backendtest.project.service.ReactiveBookService;
+import com.backendtest.project.util.CursorCodec;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveBookServiceImpl implements ReactiveBookService {
+    /**
+     * Maximum number of rows requested from the database ahead of the subscriber while streaming.
+     */
+    static final int STREAM_PREFETCH = 500;
+
+    private final ReactiveBookRepository bookRepository;
+
+    /**
+     * Checks if the given date is in the past or present.
+     *
+     * @param date the date to check.
+     * @return true if the date is in the past or today, false if it is in the future.
+     */
+    private boolean isDateInThePastOrPresent(LocalDate date) {
+        LocalDate currentDate = LocalDate.now();
+        return date.isBefore(currentDate);
+    }
+
+    /**
+     * Creates or updates a book based on the provided {@link BookUpsertRequest}, with the rules of
+     * {@link BookServiceImpl#createAndUpdateBook}: the ISBN must not belong to another book and the published date
+     * must be in the past or present. The write itself is a single INSERT or UPDATE statement.
+     *
+     * @param bookUpsertRequest the request containing book details.
+     * @return the saved or updated {@link Book}, or an error signal with {@link NotFoundException} if the book ID is
+     *         provided but the book is not found, {@link AlreadyExistException} if a book with the same ISBN already
+     *         exists or {@link InvalidDateException} if the published date is in the future.
+     */
+    @Override
+    @Transactional
+    public Mono<Book> createAndUpdateBook(BookUpsertRequest bookUpsertRequest) {
+        Long bookId = bookUpsertRequest.getBookId();
+        return bookRepository.findByIsbn(bookUpsertRequest.getIsbn())
+                .filter(foundBook -> !Objects.equals(bookId, foundBook.getId()))
+                .flatMap(foundBook -> Mono.<Book>error(new AlreadyExistException("Book with ISBN has already existed.")))
+                .then(Mono.defer(() -> {
+                    if (!isDateInThePastOrPresent(bookUpsertRequest.getPublishedDate())) {
+                        return Mono.error(new InvalidDateException("Published date must be in the past or present"));
+                    }
+                    Book savedBook = new Book();
+                    savedBook.setAuthor(bookUpsertRequest.getAuthor());
+                    savedBook.setIsbn(bookUpsertRequest.getIsbn());
+                    savedBook.setPrice(bookUpsertRequest.getPrice());
+                    savedBook.setTitle(bookUpsertRequest.getTitle());
+                    savedBook.setPublishedDate(bookUpsertRequest.getPublishedDate());
+                    savedBook.setUpdatedAt(Instant.now());
+                    if (bookId == null) return bookRepository.save(savedBook);
+                    savedBook.setId(bookId);
+                    return bookRepository.updateBook(bookId, savedBook.getTitle(), savedBook.getAuthor(),
+                                    savedBook.getPublishedDate(), savedBook.getIsbn(), savedBook.getPrice(),
+                                    savedBook.getUpdatedAt())
+                            .flatMap(updated -> updated == 0
+                                    ? Mono.<Book>error(new NotFoundException("Book not found."))
+                                    : Mono.just(savedBook));
+                }))
+                .onErrorMap(DataIntegrityViolationException.class, e -> new AlreadyExistException("Book with ISBN has already existed."));
+    }
+
+    /**
+     * Finds a book by its ID.
+     *
+     * @param id the ID of the book to find.
+     * @return the {@link Book} with the specified ID, or an error signal with {@link NotFoundException} if it does not exist.
+     */
+    @Override
+    public Mono<Book> findById(Long id) {
+        return bookRepository.findById(id).switchIfEmpty(Mono.error(() -> new NotFoundException("Book not found.")));
+    }
+
+    /**
+     * Streams all books in id order.
+     * Rows are requested from the database in batches of at most {@value #STREAM_PREFETCH} as the subscriber
+     * consumes them, so a slow client slows down the query instead of filling the memory.
+     *
+     * @return every {@link Book}, in id order.
+     */
+    @Override
+    public Flux<Book> findAll() {
+        return bookRepository.findAllByOrderByIdAsc().limitRate(STREAM_PREFETCH);
+    }
+
+    /**
+     * Retrieves a page of books ordered by id, fetching one extra row to know whether another page follows.
+     *
+     * @param pageable the pagination information (page, size).
+     * @param withTotal whether to include the total number of books in the response.
+     * @return the books of the page, whether another page follows, and the total number of books when withTotal is true.
+     */
+    @Override
+    public Mono<BookPage<Book>> findAllWithPagination(Pageable pageable, boolean withTotal) {
+        int size = pageable.getPageSize();
+        Mono<List<Book>> books = bookRepository.findPage(size + 1, pageable.getOffset()).collectList();
+        Mono<Long> totalCount = withTotal ? bookRepository.count() : Mono.just(-1L);
+        return Mono.zip(books, totalCount).map(pageAndTotal -> {
+            List<Book> data = pageAndTotal.getT1();
+            return new BookPage<>(withTotal ? pageAndTotal.getT2() : null, data.size() > size,
+                    data.size() > size ? data.subList(0, size) : data);
+        });
+    }
+
+    /**
+     * Retrieves a page of books using keyset (seek) pagination ordered by id, like {@link BookServiceImpl#findAllAfter}.
+     *
+     * @param after the cursor returned with the previous page, or null/blank for the first page.
+     * @param size the number of books per page.
+     * @return the books of the page, and the cursor of the following page (null when this is the last page).
+     */
+    @Override
+    public Mono<BookCursorPage<Book>> findAllAfter(String after, int size) {
+        if (size < 1) return Mono.error(new BadRequestException("Page size must not be less than one"));
+        return Mono.fromCallable(() -> (after == null || after.isBlank()) ? 0L : CursorCodec.decodeId(after))
+                .flatMap(lastId -> bookRepository.findPageAfter(lastId, size + 1).collectList())
+                .map(books -> {
+                    boolean hasNext = books.size() > size;
+                    List<Book> data = hasNext ? books.subList(0, size) : books;
+                    return new BookCursorPage<>(data, hasNext ? CursorCodec.encodeId(data.get(data.size() - 1).getId()) : null);
+                });
+    }
+
+    /**
+     * Deletes a book by its ID.
+     *
+     * @param id the ID of the book to delete.
+     * @return completion, or an error signal with {@link NotFoundException} if the book does not exist.
+     */
+    @Override
+    @Transactional
+    public Mono<Void> deleteById(Long id) {
+        return findById(id).flatMap(bookRepository::delete);
+    }
+}
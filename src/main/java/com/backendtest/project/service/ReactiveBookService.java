@@ -0,0 +1,22 @@
+package com.backendtest.project.service;
+
+import com.backendtest.project.dto.BookCursorPage;
+import com.backendtest.project.dto.BookPage;
+import com.backendtest.project.dto.BookUpsertRequest;
+import com.backendtest.project.model.Book;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link BookService}, used by the reactive profile.
+ * Operations follow the same rules and signal the same exceptions as their {@link BookService} equivalents.
+ */
+public interface ReactiveBookService {
+    Mono<Book> createAndUpdateBook(BookUpsertRequest bookUpsertRequest);
+    Mono<Book> findById(Long id);
+    Flux<Book> findAll();
+    Mono<BookPage<Book>> findAllWithPagination(Pageable pageable, boolean withTotal);
+    Mono<BookCursorPage<Book>> findAllAfter(String after, int size);
+    Mono<Void> deleteById(Long id);
+}
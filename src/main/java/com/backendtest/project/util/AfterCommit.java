@@ -0,0 +1,33 @@
+package com.backendtest.project.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers the maintenance of in-memory state (caches, indexes, counters) derived from the database until the current
+ * transaction has committed. Done earlier, a concurrent read could reload and cache the row as it was before the
+ * commit, and a rollback would leave the in-memory state changed.
+ */
+public final class AfterCommit {
+    private AfterCommit() {
+    }
+
+    /**
+     * Runs the given action once the current transaction has committed, or right away outside of a transaction.
+     * The action is not run if the transaction rolls back.
+     *
+     * @param action the action to run.
+     */
+    public static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,63 @@
+package com.backendtest.project.util;
+
+import com.backendtest.project.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes and decodes the opaque cursor tokens used by keyset (seek) pagination.
+ * A cursor carries the sort key values of the last row of a page; clients only pass it back as-is.
+ */
+public final class CursorCodec {
+    private static final String SEPARATOR = "|";
+
+    private CursorCodec() {
+    }
+
+    /**
+     * Encodes the given key values into a URL-safe token.
+     *
+     * @param keys the sort key values of the last returned row, most significant first.
+     * @return the opaque cursor token.
+     */
+    public static String encode(Object... keys) {
+        StringBuilder raw = new StringBuilder();
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) raw.append(SEPARATOR);
+            raw.append(keys[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode(Object...)}.
+     *
+     * @param cursor the opaque cursor token.
+     * @param expectedKeys the number of key values the cursor must contain.
+     * @return the key values as strings, most significant first.
+     * @throws InvalidCursorException if the token is malformed.
+     */
+    public static String[] decode(String cursor, int expectedKeys) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] keys = raw.split("\\|", -1);
+            if (keys.length != expectedKeys) throw new InvalidCursorException("Invalid cursor.");
+            return keys;
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid cursor.");
+        }
+    }
+
+    public static String encodeId(long id) {
+        return encode(id);
+    }
+
+    public static long decodeId(String cursor) {
+        try {
+            return Long.parseLong(decode(cursor, 1)[0]);
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException("Invalid cursor.");
+        }
+    }
+}
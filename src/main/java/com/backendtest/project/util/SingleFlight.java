@@ -0,0 +1,130 @@
+package com.backendtest.project.util;
+
+import com.backendtest.project.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Request coalescing ("single flight"): concurrent calls with the same flight name and key share one execution of the
+ * loader, run by the first caller, instead of each sending the same query to the database. This flattens the bursts of
+ * identical reads that follow a cache miss on a popular book or page.
+ *
+ * Calls joining a flight wait for its result for at most the configured timeout, then fail with a
+ * {@link ServiceUnavailableException}. A failure of the loader is thrown to every caller of the flight.
+ * The result is not kept once the flight lands: caching is left to the callers.
+ *
+ * Calls are counted in {@code book.single_flight.calls}, tagged with the flight name and whether the call ran the
+ * loader ({@code executed}), shared the result of another call ({@code coalesced}) or gave up waiting ({@code timeout}).
+ */
+@Component
+public class SingleFlight implements MeterBinder {
+    private record Key(String flight, Object key) {
+    }
+
+    private record Stats(AtomicLong executed, AtomicLong coalesced, AtomicLong timeout) {
+        Stats() {
+            this(new AtomicLong(), new AtomicLong(), new AtomicLong());
+        }
+    }
+
+    private final Duration timeout;
+    private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+    private volatile MeterRegistry registry;
+
+    public SingleFlight(@Value("${app.books.single-flight.timeout:PT2S}") Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Returns the result of the loader, shared with the concurrent calls for the same flight and key.
+     *
+     * @param flight the name of the kind of read, e.g. "page".
+     * @param key the arguments of the read; must implement equals and hashCode.
+     * @param loader the read itself, run by the first caller only.
+     * @return the result of the loader.
+     * @throws ServiceUnavailableException if the result of another call is not available within the timeout.
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V execute(String flight, Object key, Supplier<V> loader) {
+        Key callKey = new Key(flight, key);
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(callKey, call);
+        Stats flightStats = stats(flight);
+        if (running == null) {
+            flightStats.executed().incrementAndGet();
+            return (V) run(callKey, call, loader);
+        }
+        flightStats.coalesced().incrementAndGet();
+        try {
+            return (V) running.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            flightStats.timeout().incrementAndGet();
+            throw new ServiceUnavailableException("Timed out waiting for an identical request in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while waiting for an identical request in progress");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private Object run(Key callKey, CompletableFuture<Object> call, Supplier<?> loader) {
+        Object result;
+        try {
+            result = loader.get();
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(callKey, call);
+            call.completeExceptionally(e);
+            throw e;
+        }
+        // Later calls start a new flight, so they see writes committed after this read
+        inFlight.remove(callKey, call);
+        call.complete(result);
+        return result;
+    }
+
+    private Stats stats(String flight) {
+        return stats.computeIfAbsent(flight, name -> {
+            Stats created = new Stats();
+            MeterRegistry boundRegistry = registry;
+            if (boundRegistry != null) register(boundRegistry, name, created);
+            return created;
+        });
+    }
+
+    private static void register(MeterRegistry registry, String flight, Stats flightStats) {
+        register(registry, flight, "executed", flightStats.executed());
+        register(registry, flight, "coalesced", flightStats.coalesced());
+        register(registry, flight, "timeout", flightStats.timeout());
+    }
+
+    private static void register(MeterRegistry registry, String flight, String outcome, AtomicLong count) {
+        FunctionCounter.builder("book.single_flight.calls", count, AtomicLong::get)
+                .description("Reads that ran the query, shared the result of an identical read in progress, or gave up waiting for it")
+                .tag("flight", flight)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        stats.forEach((flight, flightStats) -> register(registry, flight, flightStats));
+    }
+}
@@ -0,0 +1,79 @@
+package com.backendtest.project.validation;
+
+import com.backendtest.project.exception.InvalidDateException;
+
+import java.time.LocalDate;
+import java.time.Year;
+
+/**
+ * Parser and formatter for the "MM-dd-yyyy" published date format of the API.
+ *
+ * Parsing validates and converts in a single pass over the characters: no regular expression, no
+ * {@link java.time.format.DateTimeFormatter} and no intermediate objects, only the resulting {@link LocalDate}.
+ * Unlike a lenient formatter, impossible dates such as 02-30-2020 are rejected instead of being adjusted.
+ */
+public final class PublishedDateFormat {
+    public static final String PATTERN = "MM-dd-yyyy";
+    public static final String INVALID_FORMAT_MESSAGE = "Published date must be in format MM-dd-yyyy";
+
+    private PublishedDateFormat() {
+    }
+
+    /**
+     * Parses a date in "MM-dd-yyyy" format.
+     *
+     * @param text the date text, e.g. "12-31-2020".
+     * @return the corresponding {@link LocalDate}.
+     * @throws InvalidDateException if the text is not a valid date in "MM-dd-yyyy" format.
+     */
+    public static LocalDate parse(CharSequence text) {
+        if (text == null || text.length() != 10 || text.charAt(2) != '-' || text.charAt(5) != '-') {
+            throw new InvalidDateException(INVALID_FORMAT_MESSAGE);
+        }
+        int month = digit(text, 0) * 10 + digit(text, 1);
+        int day = digit(text, 3) * 10 + digit(text, 4);
+        int year = digit(text, 6) * 1000 + digit(text, 7) * 100 + digit(text, 8) * 10 + digit(text, 9);
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(month, year)) {
+            throw new InvalidDateException(INVALID_FORMAT_MESSAGE);
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    /**
+     * Formats a date as "MM-dd-yyyy".
+     *
+     * @param date the date to format.
+     * @return the formatted date.
+     */
+    public static String format(LocalDate date) {
+        char[] chars = new char[10];
+        int month = date.getMonthValue();
+        int day = date.getDayOfMonth();
+        int year = date.getYear();
+        chars[0] = (char) ('0' + month / 10);
+        chars[1] = (char) ('0' + month % 10);
+        chars[2] = '-';
+        chars[3] = (char) ('0' + day / 10);
+        chars[4] = (char) ('0' + day % 10);
+        chars[5] = '-';
+        chars[6] = (char) ('0' + year / 1000 % 10);
+        chars[7] = (char) ('0' + year / 100 % 10);
+        chars[8] = (char) ('0' + year / 10 % 10);
+        chars[9] = (char) ('0' + year % 10);
+        return new String(chars);
+    }
+
+    private static int digit(CharSequence text, int index) {
+        char c = text.charAt(index);
+        if (c < '0' || c > '9') throw new InvalidDateException(INVALID_FORMAT_MESSAGE);
+        return c - '0';
+    }
+
+    private static int lengthOfMonth(int month, int year) {
+        return switch (month) {
+            case 2 -> Year.isLeap(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+}
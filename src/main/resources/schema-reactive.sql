@@ -0,0 +1,14 @@
+create table if not exists book (
+    id bigint not null auto_increment,
+    author varchar(255),
+    isbn varchar(255),
+    price decimal(38,2),
+    published_date date not null,
+    title varchar(255),
+    version bigint not null default 0,
+    updated_at datetime(6),
+    primary key (id),
+    unique (isbn),
+    index idx_book_price_id (price, id),
+    index idx_book_published_date_id (published_date, id)
+);
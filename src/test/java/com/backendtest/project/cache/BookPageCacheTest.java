@@ -0,0 +1,84 @@
+package com.backendtest.project.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookPageCacheTest {
+    private static final BookPageCache.Key PAGE = new BookPageCache.Key("books-pagination", 0, 5, true);
+
+    private BookPageCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cache = new BookPageCache(new ObjectMapper(), DataSize.ofMegabytes(1), Duration.ofMinutes(1), DataSize.ofBytes(64));
+    }
+
+    private Map<String, Object> load(String title) {
+        loads.incrementAndGet();
+        return Map.of("data", List.of(Map.of("title", title)));
+    }
+
+    @Test
+    @DisplayName("Should serialize a page once and serve the same bytes afterwards")
+    void testGet_SerializesOnce() {
+        // Act
+        BookPageCache.SerializedPage first = cache.get(PAGE, () -> load("Book 1"));
+        BookPageCache.SerializedPage second = cache.get(PAGE, () -> load("Book 2"));
+
+        // Assert
+        assertEquals("{\"data\":[{\"title\":\"Book 1\"}]}", new String(first.json(), StandardCharsets.UTF_8));
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should keep a gzip copy only of pages above the compression threshold")
+    void testGet_CompressesLargePages() throws IOException {
+        // Act
+        BookPageCache.SerializedPage small = cache.get(PAGE, () -> load("Book 1"));
+        BookPageCache.SerializedPage large = cache.get(new BookPageCache.Key("books", 0, 0, false), () -> load("Book ".repeat(50)));
+
+        // Assert
+        assertNull(small.gzip());
+        assertTrue(large.gzip().length < large.json().length);
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(large.gzip()))) {
+            assertArrayEquals(large.json(), gzip.readAllBytes());
+        }
+    }
+
+    @Test
+    @DisplayName("Should drop pages on invalidation, and not store a page loaded while an invalidation happened")
+    void testInvalidateAll() {
+        // Arrange
+        cache.get(PAGE, () -> load("Book 1"));
+
+        // Act
+        cache.invalidateAll();
+        BookPageCache.SerializedPage reloaded = cache.get(PAGE, () -> {
+            // A write committed while this page was being read
+            cache.invalidateAll();
+            return load("Book 2");
+        });
+        BookPageCache.SerializedPage next = cache.get(PAGE, () -> load("Book 3"));
+
+        // Assert
+        assertEquals("{\"data\":[{\"title\":\"Book 2\"}]}", new String(reloaded.json(), StandardCharsets.UTF_8));
+        assertEquals("{\"data\":[{\"title\":\"Book 3\"}]}", new String(next.json(), StandardCharsets.UTF_8));
+        assertEquals(3, loads.get());
+    }
+}
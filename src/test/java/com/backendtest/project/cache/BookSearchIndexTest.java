@@ -0,0 +1,82 @@
+package com.backendtest.project.cache;
+
+import com.backendtest.project.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BookSearchIndexTest {
+    private BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookSearchIndex(Mockito.mock(BookRepository.class));
+        index.put(1L, "The Lord of the Rings", "J. R. R. Tolkien");
+        index.put(2L, "The Hobbit", "J. R. R. Tolkien");
+        index.put(3L, "Les Misérables", "Victor Hugo");
+        index.put(4L, "Lord Jim", "Joseph Conrad");
+    }
+
+    @Test
+    @DisplayName("Should split text into lower-cased words without accents or punctuation")
+    void testTokenize() {
+        assertEquals(List.of("les", "miserables"), BookSearchIndex.tokenize("Les Misérables!"));
+        assertEquals(List.of("j", "r", "tolkien"), BookSearchIndex.tokenize("J. R. R. Tolkien"));
+        assertEquals(List.of(), BookSearchIndex.tokenize("  --  "));
+    }
+
+    @Test
+    @DisplayName("Should match whole words and word prefixes in title or author, ignoring case and accents")
+    void testSearch_TokenAndPrefix() {
+        assertArrayEquals(new long[]{1L, 4L}, index.search("lord", 10));
+        assertArrayEquals(new long[]{1L, 2L}, index.search("TOLK", 10));
+        assertArrayEquals(new long[]{3L}, index.search("misera", 10));
+        assertArrayEquals(new long[]{}, index.search("dune", 10));
+    }
+
+    @Test
+    @DisplayName("Should require every word of the query to match and honour the limit")
+    void testSearch_AllWordsAndLimit() {
+        assertArrayEquals(new long[]{1L}, index.search("lord tolkien", 10));
+        assertArrayEquals(new long[]{}, index.search("hobbit conrad", 10));
+        assertArrayEquals(new long[]{1L}, index.search("the", 1));
+    }
+
+    @Test
+    @DisplayName("Should re-index an updated book and forget a deleted one")
+    void testPutAndRemove() {
+        // Act
+        index.put(2L, "The Silmarillion", "J. R. R. Tolkien");
+        index.remove(4L);
+
+        // Assert
+        assertArrayEquals(new long[]{}, index.search("hobbit", 10));
+        assertArrayEquals(new long[]{2L}, index.search("silmarillion", 10));
+        assertArrayEquals(new long[]{1L}, index.search("lord", 10));
+    }
+
+    @Test
+    @DisplayName("Should merge the books of every token matching a prefix and stop at the limit")
+    void testSearch_PrefixMatchingManyTokens() {
+        // Arrange
+        for (long id = 5; id <= 500; id++) index.put(id, "Tale " + id, id % 2 == 0 ? "Tolstoy" : "Twain");
+
+        // Act
+        long[] ids = index.search("t", 1000);
+
+        // Assert
+        // Books 1 and 2 by "the" and "tolkien", every added book by "tale" and its author
+        assertEquals(498, ids.length);
+        assertArrayEquals(new long[]{1L, 2L, 5L}, Arrays.copyOf(ids, 3));
+        assertEquals(500L, ids[497]);
+        assertArrayEquals(new long[]{6L, 8L, 10L}, index.search("ta tolst", 3));
+        assertArrayEquals(new long[]{2L, 3L}, index.search("h", 10));
+    }
+}
@@ -0,0 +1,59 @@
+package com.backendtest.project.config;
+
+import com.backendtest.project.model.Book;
+import com.backendtest.project.repository.BookRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Starts the application with a primary and one replica. Both are the same in-memory H2 database, so the replica is
+ * never behind: it receives the reads as soon as it has seen a heartbeat.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routed-books;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "app.datasource.replica-urls=jdbc:h2:mem:routed-books;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "app.datasource.replica-check-interval=PT1H",
+        "app.books.write-behind.journal=target/routed-books.journal"
+})
+public class DataSourceRoutingConfigTest {
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private ReadWriteRoutingDataSource routingDataSource;
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Test
+    @DisplayName("Should route the reads of the application to a replica once its heartbeat is read")
+    void testContextWithReplica_shouldReadFromReplica() {
+        // Arrange
+        Book book = new Book();
+        book.setTitle("Book 1");
+        book.setAuthor("Author 1");
+        book.setIsbn("123-456-789-1");
+        book.setPrice(BigDecimal.TEN);
+        book.setPublishedDate(LocalDate.of(2020, 1, 1));
+        Long id = bookRepository.save(book).getId();
+
+        // Act
+        routingDataSource.checkReplicas();
+
+        // Assert
+        assertInstanceOf(LazyConnectionDataSourceProxy.class, dataSource);
+        assertEquals(List.of("replica-1"), routingDataSource.getAvailableReplicas());
+        assertTrue(bookRepository.findById(id).isPresent());
+    }
+}
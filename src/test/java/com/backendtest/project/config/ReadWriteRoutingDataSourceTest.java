@@ -0,0 +1,119 @@
+package com.backendtest.project.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Routes transactions between a primary and two replicas, each a separate in-memory H2 database that knows its name.
+ * The databases are not replicated, so the tests copy the heartbeat of the primary to the replicas themselves.
+ */
+public class ReadWriteRoutingDataSourceTest {
+    private DataSource primary;
+    private Map<String, DataSource> replicas;
+    private ReadWriteRoutingDataSource routingDataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    private static DataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:routing-" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("drop all objects");
+        jdbcTemplate.execute("create table whoami (name varchar(20))");
+        // Created with the schema (ReplicaHeartbeat), replicated like the rest of it
+        jdbcTemplate.execute("create table replica_heartbeat (id int primary key, beat_millis bigint not null)");
+        jdbcTemplate.update("insert into whoami values (?)", name);
+        return dataSource;
+    }
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", database("replica-1"));
+        replicas.put("replica-2", database("replica-2"));
+        routingDataSource = new ReadWriteRoutingDataSource(primary, replicas, Duration.ofSeconds(5), Clock.systemUTC());
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    private String whoami(TransactionTemplate transaction) {
+        return transaction.execute(status -> jdbcTemplate.queryForObject("select name from whoami", String.class));
+    }
+
+    /**
+     * Copies the heartbeat of the primary to the replica, as replication would, aged by the given lag.
+     */
+    private void replicateHeartbeat(String replica, Duration lag) {
+        long beat = new JdbcTemplate(primary).queryForObject("select beat_millis from replica_heartbeat where id = 1", Long.class);
+        JdbcTemplate replicaTemplate = new JdbcTemplate(replicas.get(replica));
+        replicaTemplate.update("merge into replica_heartbeat key (id) values (1, ?)", beat - lag.toMillis());
+    }
+
+    @Test
+    @DisplayName("Should send read-only transactions to the replicas in turn and the others to the primary")
+    void testRouting_ReadOnlyToReplicas() {
+        // Arrange
+        routingDataSource.checkReplicas();
+        replicateHeartbeat("replica-1", Duration.ZERO);
+        replicateHeartbeat("replica-2", Duration.ofSeconds(1));
+        routingDataSource.checkReplicas();
+
+        // Act
+        List<String> reads = List.of(whoami(readOnly), whoami(readOnly), whoami(readOnly));
+        String write = whoami(readWrite);
+
+        // Assert
+        assertEquals(List.of("replica-1", "replica-2"), routingDataSource.getAvailableReplicas());
+        assertEquals(List.of("replica-1", "replica-2", "replica-1"), reads);
+        assertEquals("primary", write);
+    }
+
+    @Test
+    @DisplayName("Should read from the primary while no replica has replicated the heartbeat")
+    void testRouting_NoHealthyReplica() {
+        // Act
+        routingDataSource.checkReplicas();
+
+        // Assert
+        assertEquals(List.of(), routingDataSource.getAvailableReplicas());
+        assertEquals("primary", whoami(readOnly));
+    }
+
+    @Test
+    @DisplayName("Should stop reading from a replica lagging more than the maximum lag")
+    void testRouting_LaggingReplica() {
+        // Arrange
+        routingDataSource.checkReplicas();
+        replicateHeartbeat("replica-1", Duration.ofSeconds(30));
+        replicateHeartbeat("replica-2", Duration.ZERO);
+
+        // Act
+        routingDataSource.checkReplicas();
+
+        // Assert
+        assertEquals(List.of("replica-2"), routingDataSource.getAvailableReplicas());
+        assertEquals("replica-2", whoami(readOnly));
+        assertEquals("replica-2", whoami(readOnly));
+    }
+}
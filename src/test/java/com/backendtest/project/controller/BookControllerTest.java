@@ -1,11 +1,31 @@
 package com.backendtest.project.controller;
 
+import com.backendtest.project.cache.BookPageCache;
+import com.backendtest.project.config.WebConfig;
+import com.backendtest.project.dto.BookBatchUpsertRequest;
+import com.backendtest.project.dto.BookChangePage;
+import com.backendtest.project.dto.BookCursorPage;
+import com.backendtest.project.dto.BookImportResult;
+import com.backendtest.project.dto.BookLookup;
+import com.backendtest.project.dto.BookPage;
+import com.backendtest.project.dto.BookRangeFilter;
 import com.backendtest.project.dto.BookUpsertRequest;
+import com.backendtest.project.dto.BookVersion;
+import com.backendtest.project.dto.BookView;
 import com.backendtest.project.exception.GlobalExceptionHandler;
 import com.backendtest.project.exception.NotFoundException;
+import com.backendtest.project.exception.PreconditionFailedException;
+import com.backendtest.project.exception.ServiceUnavailableException;
+import com.backendtest.project.exception.TooManyRequestsException;
 import com.backendtest.project.model.Book;
+import com.backendtest.project.model.BookChange;
+import com.backendtest.project.service.BookChangeService;
+import com.backendtest.project.service.BookImportService;
 import com.backendtest.project.service.BookService;
+import com.backendtest.project.service.BookWriteBehindService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -17,21 +37,31 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import java.io.ByteArrayInputStream;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
 @WebMvcTest(controllers = BookController.class)
-@Import(GlobalExceptionHandler.class)
+@Import({GlobalExceptionHandler.class, SimpleMeterRegistry.class, BookPageCache.class, WebConfig.class})
 public class BookControllerTest {
     @Autowired
     BookController bookController;
@@ -39,8 +69,18 @@ public class BookControllerTest {
     private MockMvc mockMvc;
     @MockBean
     private BookService bookService;
+    @MockBean
+    private BookImportService bookImportService;
+    @MockBean
+    private BookChangeService bookChangeService;
+    @MockBean
+    private BookWriteBehindService bookWriteBehindService;
     @Autowired
     private ObjectMapper objectMapper;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private BookPageCache bookPageCache;
 
     private Book book;
     private BookUpsertRequest bookUpsertRequest;
@@ -49,6 +89,8 @@ public class BookControllerTest {
     void setUp() {
         // Init mock annotations
         MockitoAnnotations.openMocks(this);
+        // Pages cached by a previous test would hide the stubs of this one
+        bookPageCache.invalidateAll();
         // Create sample BookUpsertRequest
         bookUpsertRequest = new BookUpsertRequest();
         bookUpsertRequest.setBookId(1L);
@@ -56,7 +98,7 @@ public class BookControllerTest {
         bookUpsertRequest.setAuthor("Author Test");
         bookUpsertRequest.setIsbn("123-456-789-1");
         bookUpsertRequest.setPrice(BigDecimal.valueOf(25.5));
-        bookUpsertRequest.setPublishedDate("12-12-2022");
+        bookUpsertRequest.setPublishedDate(LocalDate.of(2022, 12, 12));
 
         // Create sample book in database
         book = new Book();
@@ -79,6 +121,102 @@ public class BookControllerTest {
                 .andDo(print());
     }
 
+    @Test
+    @DisplayName("Should return the ETag of the cached list and 304 Not Modified when it still matches")
+    void testGetAllBooks_NotModified() throws Exception {
+        Mockito.when(bookService.findAll()).thenReturn(List.of(new BookView(1L, "Book 1", "Author 1", null, "101-100-102-102-1", BigDecimal.valueOf(10.99))));
+
+        String etag = mockMvc.perform(get("/api/v1/books"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/v1/books").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().bytes(new byte[0]));
+        Mockito.verify(bookService, Mockito.times(1)).findAll();
+    }
+
+    @Test
+    @DisplayName("Should stream all books as a JSON array inside the response envelope")
+    void testExportBooks_Json() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            Consumer<Book> consumer = invocation.getArgument(0);
+            consumer.accept(new Book(1L, "Book 1", "Author 1", "101-100-102-102-1", BigDecimal.valueOf(10.99)));
+            consumer.accept(new Book(2L, "Book 2", "Author 2", "101-100-102-102-2", BigDecimal.valueOf(12.99)));
+            return null;
+        }).when(bookService).streamAll(Mockito.any());
+
+        MvcResult asyncResult = mockMvc.perform(get("/api/v1/books/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // The export has its own async timeout rather than the global one
+        assertEquals(Duration.ofHours(1).toMillis(), asyncResult.getRequest().getAsyncContext().getTimeout());
+
+        mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.statusCode").value(200))
+                .andExpect(jsonPath("$.message").value("success"))
+                .andExpect(jsonPath("$.result[0].title").value("Book 1"))
+                .andExpect(jsonPath("$.result[1].title").value("Book 2"))
+                .andDo(print());
+    }
+
+    @Test
+    @DisplayName("Should stream all books as newline-delimited JSON")
+    void testExportBooks_Ndjson() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            Consumer<Book> consumer = invocation.getArgument(0);
+            consumer.accept(new Book(1L, "Book 1", "Author 1", "101-100-102-102-1", BigDecimal.valueOf(10.99)));
+            consumer.accept(new Book(2L, "Book 2", "Author 2", "101-100-102-102-2", BigDecimal.valueOf(12.99)));
+            return null;
+        }).when(bookService).streamAll(Mockito.any());
+
+        MvcResult asyncResult = mockMvc.perform(get("/api/v1/books/export").param("format", "ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String[] lines = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString().split("\n");
+
+        assertEquals(2, lines.length);
+        assertEquals("Book 1", objectMapper.readTree(lines[0]).get("title").asText());
+        assertEquals("Book 2", objectMapper.readTree(lines[1]).get("title").asText());
+    }
+
+    @Test
+    @DisplayName("Should return the changes following the since sequence number, with a capped limit")
+    void testGetChanges() throws Exception {
+        BookChange change = BookChange.deleted(1L);
+        change.setSeq(8L);
+        BookChangePage mockResponse = new BookChangePage(List.of(change), 8L, false);
+        Mockito.when(bookChangeService.findChanges(7L, 1000)).thenReturn(mockResponse);
+
+        mockMvc.perform(get("/api/v1/books/changes")
+                        .param("since", "7")
+                        .param("limit", "5000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result.changes[0].type").value("DELETED"))
+                .andExpect(jsonPath("$.result.nextSince").value(8))
+                .andExpect(jsonPath("$.result.hasMore").value(false))
+                .andDo(print());
+    }
+
+    @Test
+    @DisplayName("Should resume the change stream from the Last-Event-ID header")
+    void testStreamChanges_ResumesFromLastEventId() throws Exception {
+        Mockito.when(bookChangeService.subscribe(Mockito.anyLong())).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/api/v1/books/changes/stream")
+                        .param("since", "3")
+                        .header("Last-Event-ID", "12"))
+                .andExpect(request().asyncStarted());
+        Mockito.verify(bookChangeService).subscribe(12L);
+    }
+
     @Test
     @DisplayName("Should return a book match request bookId with a success response")
     void testGetBookById_Success() throws Exception {
@@ -94,6 +232,63 @@ public class BookControllerTest {
                 .andDo(print());
     }
 
+    @Test
+    @DisplayName("Should return the version of the book as ETag and its last update as Last-Modified")
+    void testGetBookById_ReturnsValidators() throws Exception {
+        book.setVersion(3L);
+        book.setUpdatedAt(Instant.parse("2024-05-01T10:00:00Z"));
+        Mockito.when(bookService.findById(1L)).thenReturn(book);
+
+        mockMvc.perform(get("/api/v1/book/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(header().string(HttpHeaders.LAST_MODIFIED, "Wed, 01 May 2024 10:00:00 GMT"))
+                .andExpect(jsonPath("$.result.version").doesNotExist())
+                .andDo(print());
+    }
+
+    @Test
+    @DisplayName("Should return one entry per requested id in request order, marking the unknown ones")
+    void testGetBooksByIds_Success() throws Exception {
+        Mockito.when(bookService.findByIds(List.of(1L, 42L))).thenReturn(List.of(BookLookup.of(1L, book), BookLookup.of(42L, null)));
+
+        mockMvc.perform(get("/api/v1/books/batch").param("ids", "1,42"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result[0].id").value(1))
+                .andExpect(jsonPath("$.result[0].found").value(true))
+                .andExpect(jsonPath("$.result[0].book.title").value("Test Book"))
+                .andExpect(jsonPath("$.result[1].id").value(42))
+                .andExpect(jsonPath("$.result[1].found").value(false))
+                .andDo(print());
+    }
+
+    @Test
+    @DisplayName("Should return 304 Not Modified without loading the book when the ETag still matches")
+    void testGetBookById_NotModified() throws Exception {
+        Mockito.when(bookService.findVersion(1L)).thenReturn(new BookVersion(3L, null));
+
+        mockMvc.perform(get("/api/v1/book/1").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(content().string(""))
+                .andDo(print());
+        Mockito.verify(bookService, Mockito.never()).findById(Mockito.anyLong());
+    }
+
+    @Test
+    @DisplayName("Should return the book when the ETag sent in If-None-Match is outdated")
+    void testGetBookById_Modified() throws Exception {
+        book.setVersion(4L);
+        Mockito.when(bookService.findVersion(1L)).thenReturn(new BookVersion(4L, null));
+        Mockito.when(bookService.findById(1L)).thenReturn(book);
+
+        mockMvc.perform(get("/api/v1/book/1").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+                .andExpect(jsonPath("$.result.title").value("Test Book"))
+                .andDo(print());
+    }
+
     @Test
     @DisplayName("Should return 404 Not Found when book Id does not exist")
     void testGetBookById_NotFound() throws Exception {
@@ -108,6 +303,82 @@ public class BookControllerTest {
                 .andDo(print());
     }
 
+    @Test
+    @DisplayName("Should count errors returned by the exception handler by exception type and status")
+    void testGetBookById_NotFound_CountsError() throws Exception {
+        // Arrange
+        Mockito.when(bookService.findById(98L)).thenThrow(new NotFoundException("Book not found"));
+        double before = meterRegistry.counter(GlobalExceptionHandler.ERRORS_METRIC_NAME,
+                "exception", "NotFoundException", "status", "404").count();
+
+        // Act
+        mockMvc.perform(get("/api/v1/book/98")).andExpect(status().isNotFound());
+
+        // Assert
+        assertEquals(before + 1, meterRegistry.counter(GlobalExceptionHandler.ERRORS_METRIC_NAME,
+                "exception", "NotFoundException", "status", "404").count());
+    }
+
+    @Test
+    @DisplayName("Should pass the price and published date bounds and the sort to the range filter")
+    void testFilterBooks_Success() throws Exception {
+        BookCursorPage<Book> page = new BookCursorPage<>(List.of(book), null);
+        Mockito.when(bookService.findByRange(Mockito.argThat(filter ->
+                        filter.getMinPrice().compareTo(BigDecimal.TEN) == 0
+                                && filter.getPublishedFrom().equals(LocalDate.of(2020, 1, 31))
+                                && filter.getPublishedTo() == null
+                                && filter.getSortBy() == BookRangeFilter.SortField.PUBLISHED_DATE
+                                && filter.getDirection() == Sort.Direction.DESC),
+                Mockito.isNull(), Mockito.eq(5))).thenReturn(page);
+
+        mockMvc.perform(get("/api/v1/books/filter").param("minPrice", "10").param("publishedFrom", "01-31-2020")
+                        .param("sort", "publishedDate").param("direction", "desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.statusCode").value(200))
+                .andExpect(jsonPath("$.result.data[0].title").value("Test Book"))
+                .andDo(print());
+    }
+
+    @Test
+    @DisplayName("Should return 400 BAD REQUEST when the range filter has an invalid date or sort")
+    void testFilterBooks_BadRequest() throws Exception {
+        mockMvc.perform(get("/api/v1/books/filter").param("publishedTo", "2020-01-31"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Published date must be in format MM-dd-yyyy"));
+        mockMvc.perform(get("/api/v1/books/filter").param("sort", "title"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Sort must be one of price, publishedDate"));
+        mockMvc.perform(get("/api/v1/books/filter").param("direction", "sideways"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Direction must be one of asc, desc"));
+        Mockito.verifyNoInteractions(bookService);
+    }
+
+    @Test
+    @DisplayName("Should return the books matching the search query with the limit clamped to 100")
+    void testSearchBooks_Success() throws Exception {
+        Mockito.when(bookService.search("test", 100)).thenReturn(List.of(book));
+
+        mockMvc.perform(get("/api/v1/books/search").param("q", "test").param("limit", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.statusCode").value(200))
+                .andExpect(jsonPath("$.result[0].title").value("Test Book"))
+                .andDo(print());
+    }
+
+    @Test
+    @DisplayName("Should return 503 Service Unavailable with Retry-After while the search index is warming up")
+    void testSearchBooks_IndexWarmingUp() throws Exception {
+        Mockito.when(bookService.search("test", 20))
+                .thenThrow(new ServiceUnavailableException("Search index is warming up, retry shortly."));
+
+        mockMvc.perform(get("/api/v1/books/search").param("q", "test"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists("Retry-After"))
+                .andExpect(jsonPath("$.statusCode").value(503))
+                .andDo(print());
+    }
+
     @Test
     @DisplayName("Should return 404 Not Found when deleting book Id does not exist")
     void testDeleteBookById_NotFound() throws Exception {
@@ -137,13 +408,10 @@ public class BookControllerTest {
     @DisplayName("Should return 200 OK with empty content when no books are available for pagination")
     void testGetAllBooksWithPagination_NoContent() throws Exception {
 
-        Map<String, Object> mockResponse = new HashMap<>();
-        mockResponse.put("content", Collections.emptyList());
-        mockResponse.put("totalPages", 0);
-        mockResponse.put("totalElements", 0);
+        BookPage<BookView> mockResponse = new BookPage<>(0L, false, Collections.emptyList());
 
         Pageable pageable = PageRequest.of(0, 5);
-        Mockito.when(bookService.findAllWithPagination(pageable)).thenReturn(mockResponse);
+        Mockito.when(bookService.findAllWithPagination(pageable, true)).thenReturn(mockResponse);
 
         mockMvc.perform(get("/api/v1/books-pagination")
                         .param("page", "0")
@@ -151,28 +419,25 @@ public class BookControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.statusCode").value(200))
                 .andExpect(jsonPath("$.message").value("success"))
-                .andExpect(jsonPath("$.result.content").isEmpty())
-                .andExpect(jsonPath("$.result.totalPages").value(0))
-                .andExpect(jsonPath("$.result.totalElements").value(0))
+                .andExpect(jsonPath("$.result.data").isEmpty())
+                .andExpect(jsonPath("$.result.hasNext").value(false))
+                .andExpect(jsonPath("$.result.totalCount").value(0))
                 .andDo(print());
     }
 
     @Test
     @DisplayName("Should return 200 OK with content when with books are available for pagination")
     void testGetAllBooksWithPagination_Success() throws Exception {
-        List<Book> mockBooks = Arrays.asList(
-                new Book(1L, "Book 1", "Author 1", "101-100-102-102-1", BigDecimal.valueOf(10.99)),
-                new Book(2L, "Book 2", "Author 2", "101-100-102-102-2", BigDecimal.valueOf(12.99)),
-                new Book(3L, "Book 3", "Author 3", "101-100-102-102-3", BigDecimal.valueOf(8.99))
+        List<BookView> mockBooks = Arrays.asList(
+                new BookView(1L, "Book 1", "Author 1", null, "101-100-102-102-1", BigDecimal.valueOf(10.99)),
+                new BookView(2L, "Book 2", "Author 2", null, "101-100-102-102-2", BigDecimal.valueOf(12.99)),
+                new BookView(3L, "Book 3", "Author 3", null, "101-100-102-102-3", BigDecimal.valueOf(8.99))
         );
 
-        Map<String, Object> mockResponse = new HashMap<>();
-        mockResponse.put("content", mockBooks);
-        mockResponse.put("totalPages", 1);
-        mockResponse.put("totalElements", 3);
+        BookPage<BookView> mockResponse = new BookPage<>(3L, false, mockBooks);
 
         Pageable pageable = PageRequest.of(0, 5);
-        Mockito.when(bookService.findAllWithPagination(pageable)).thenReturn(mockResponse);
+        Mockito.when(bookService.findAllWithPagination(pageable, true)).thenReturn(mockResponse);
 
         mockMvc.perform(get("/api/v1/books-pagination")
                         .param("page", "0")
@@ -180,11 +445,71 @@ public class BookControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.statusCode").value(200))
                 .andExpect(jsonPath("$.message").value("success"))
-                .andExpect(jsonPath("$.result.content[0].title").value("Book 1"))
-                .andExpect(jsonPath("$.result.content[1].title").value("Book 2"))
-                .andExpect(jsonPath("$.result.content[2].title").value("Book 3"))
-                .andExpect(jsonPath("$.result.totalPages").value(1))
-                .andExpect(jsonPath("$.result.totalElements").value(3))
+                .andExpect(jsonPath("$.result.data[0].title").value("Book 1"))
+                .andExpect(jsonPath("$.result.data[1].title").value("Book 2"))
+                .andExpect(jsonPath("$.result.data[2].title").value("Book 3"))
+                .andExpect(jsonPath("$.result.hasNext").value(false))
+                .andExpect(jsonPath("$.result.totalCount").value(3))
+                .andDo(print());
+    }
+
+    @Test
+    @DisplayName("Should serve a repeated page from the serialized page cache, gzip-compressed when accepted")
+    void testGetAllBooksWithPagination_CachedAndCompressed() throws Exception {
+        List<BookView> mockBooks = new ArrayList<>();
+        for (long i = 1; i <= 50; i++) {
+            mockBooks.add(new BookView(i, "Book " + i, "Author " + i, null, "101-100-102-102-" + i, BigDecimal.valueOf(10.99)));
+        }
+        BookPage<BookView> mockResponse = new BookPage<>(null, false, mockBooks);
+        Mockito.when(bookService.findAllWithPagination(PageRequest.of(0, 50), true)).thenReturn(mockResponse);
+
+        mockMvc.perform(get("/api/v1/books-pagination").param("size", "50"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(jsonPath("$.result.data[49].title").value("Book 50"));
+        byte[] compressed = mockMvc.perform(get("/api/v1/books-pagination").param("size", "50")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertEquals("Book 50", objectMapper.readTree(gzip).at("/result/data/49/title").asText());
+        }
+        Mockito.verify(bookService, Mockito.times(1)).findAllWithPagination(PageRequest.of(0, 50), true);
+    }
+
+    @Test
+    @DisplayName("Should use the cursor-based mode when the after parameter is present")
+    void testGetAllBooksWithPagination_Cursor() throws Exception {
+        BookCursorPage<BookView> mockResponse = new BookCursorPage<>(
+                List.of(new BookView(1L, "Book 1", "Author 1", null, "101-100-102-102-1", BigDecimal.valueOf(10.99))), "MQ");
+        Mockito.when(bookService.findAllAfter("", 1)).thenReturn(mockResponse);
+
+        mockMvc.perform(get("/api/v1/books-pagination")
+                        .param("after", "")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.statusCode").value(200))
+                .andExpect(jsonPath("$.result.data[0].title").value("Book 1"))
+                .andExpect(jsonPath("$.result.nextCursor").value("MQ"))
+                .andDo(print());
+    }
+
+    @Test
+    @DisplayName("Should pass the comma-separated fields parameter to the service")
+    void testGetAllBooksWithPagination_Fields() throws Exception {
+        BookPage<Map<String, Object>> mockResponse = new BookPage<>(null, false, List.of(Map.of("id", 1L, "title", "Book 1")));
+        Mockito.when(bookService.findAllWithPagination(PageRequest.of(0, 5), false, List.of("title", "price")))
+                .thenReturn(mockResponse);
+
+        mockMvc.perform(get("/api/v1/books-pagination")
+                        .param("withTotal", "false")
+                        .param("fields", "title,price"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result.data[0].title").value("Book 1"))
+                .andExpect(jsonPath("$.result.data[0].author").doesNotExist())
                 .andDo(print());
     }
 
@@ -195,7 +520,7 @@ public class BookControllerTest {
         bookUpsertRequest.setBookId(1L);
         bookUpsertRequest.setTitle("Book1");
         bookUpsertRequest.setAuthor("AuthorA");
-        bookUpsertRequest.setPublishedDate("10-01-2023");
+        bookUpsertRequest.setPublishedDate(LocalDate.of(2023, 10, 1));
         bookUpsertRequest.setIsbn("123-456-789-1");
         bookUpsertRequest.setPrice(BigDecimal.valueOf(29.99));
 
@@ -213,6 +538,46 @@ public class BookControllerTest {
                 .andDo(print());
     }
 
+    @Test
+    @DisplayName("Should update only the version sent in If-Match and return 412 Precondition Failed when it is stale")
+    void testCreateAndUpdateBook_IfMatch() throws Exception {
+        String jsonRequest = objectMapper.writeValueAsString(bookUpsertRequest);
+        Mockito.when(bookService.createAndUpdateBook(Mockito.any(BookUpsertRequest.class), Mockito.eq(3L))).thenReturn(book);
+        Mockito.when(bookService.createAndUpdateBook(Mockito.any(BookUpsertRequest.class), Mockito.eq(2L)))
+                .thenThrow(new PreconditionFailedException("Book has been modified since version 2."));
+
+        mockMvc.perform(post("/api/v1/books")
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(jsonRequest))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.statusCode").value(200));
+        mockMvc.perform(post("/api/v1/books")
+                        .header(HttpHeaders.IF_MATCH, "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(jsonRequest))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.statusCode").value(412))
+                .andExpect(jsonPath("$.message").value("Book has been modified since version 2."))
+                .andDo(print());
+        Mockito.verify(bookService, Mockito.never()).createAndUpdateBook(Mockito.any(BookUpsertRequest.class));
+    }
+
+    @Test
+    @DisplayName("Should return 409 CONFLICT when an update without If-Match races with another update of the book")
+    void testCreateAndUpdateBook_ConcurrentUpdate() throws Exception {
+        String jsonRequest = objectMapper.writeValueAsString(bookUpsertRequest);
+        Mockito.when(bookService.createAndUpdateBook(Mockito.any(BookUpsertRequest.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Book.class, 1L));
+
+        mockMvc.perform(post("/api/v1/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(jsonRequest))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.statusCode").value(409))
+                .andExpect(jsonPath("$.message").value("Book has been modified concurrently, retry the request."));
+    }
+
     @Test
     @DisplayName("Should return 400 BAD REQUEST with error message when one of request body is invalid")
     void testCreateAndUpdateBook_BadRequest() throws Exception {
@@ -220,7 +585,7 @@ public class BookControllerTest {
         bookUpsertRequest.setBookId(1L);
         bookUpsertRequest.setTitle("Book1");
         bookUpsertRequest.setAuthor("");
-        bookUpsertRequest.setPublishedDate("10-01-2023");
+        bookUpsertRequest.setPublishedDate(LocalDate.of(2023, 10, 1));
         bookUpsertRequest.setIsbn("123-456-789-1");
         bookUpsertRequest.setPrice(BigDecimal.valueOf(29.99));
 
@@ -235,6 +600,97 @@ public class BookControllerTest {
                 .andDo(print());
     }
 
+    @Test
+    @DisplayName("Should return 400 BAD REQUEST when the published date is not in format MM-dd-yyyy")
+    void testCreateAndUpdateBook_InvalidPublishedDate() throws Exception {
+        String jsonRequest = objectMapper.writeValueAsString(bookUpsertRequest).replace("12-12-2022", "2022-12-12");
 
+        mockMvc.perform(post("/api/v1/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(jsonRequest))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.statusCode").value(400))
+                .andExpect(jsonPath("$.message").value("Published date must be in format MM-dd-yyyy"))
+                .andDo(print());
+        Mockito.verify(bookService, Mockito.never()).createAndUpdateBook(Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Should return 202 Accepted once the book is buffered, and 429 Too Many Requests when the buffer is full")
+    void testEnqueueBook() throws Exception {
+        String jsonRequest = objectMapper.writeValueAsString(bookUpsertRequest);
 
+        mockMvc.perform(post("/api/v1/books/async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(jsonRequest))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.statusCode").value(202))
+                .andExpect(jsonPath("$.message").value("accepted"));
+        Mockito.verify(bookWriteBehindService).enqueue(Mockito.argThat(request -> "123-456-789-1".equals(request.getIsbn())));
+
+        Mockito.doThrow(new TooManyRequestsException("Write buffer is full, retry shortly."))
+                .when(bookWriteBehindService).enqueue(Mockito.any());
+        mockMvc.perform(post("/api/v1/books/async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(jsonRequest))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(jsonPath("$.statusCode").value(429))
+                .andDo(print());
+        Mockito.verify(bookService, Mockito.never()).createAndUpdateBook(Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Should pass the request body and its content type to the bulk import")
+    void testImportBooks_Success() throws Exception {
+        BookImportResult importResult = new BookImportResult();
+        importResult.setReceived(2);
+        importResult.setImported(1);
+        importResult.addError(2, "123-456-789-1", "Author is required");
+        Mockito.when(bookImportService.importBooks(Mockito.any(), Mockito.argThat(type -> type.isCompatibleWith(MediaType.parseMediaType("text/csv"))))).thenReturn(importResult);
+
+        mockMvc.perform(post("/api/v1/books/import")
+                        .contentType("text/csv")
+                        .content("title,author,publishedDate,isbn,price\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.statusCode").value(200))
+                .andExpect(jsonPath("$.result.imported").value(1))
+                .andExpect(jsonPath("$.result.failed").value(1))
+                .andExpect(jsonPath("$.result.errors[0].row").value(2))
+                .andExpect(jsonPath("$.result.errors[0].message").value("Author is required"))
+                .andDo(print());
+    }
+
+    @Test
+    @DisplayName("Should upsert a batch of books and return them")
+    void testCreateAndUpdateBooks_Success() throws Exception {
+        BookBatchUpsertRequest batchRequest = new BookBatchUpsertRequest();
+        batchRequest.setBooks(List.of(bookUpsertRequest));
+        Mockito.when(bookService.createAndUpdateBooks(Mockito.anyList())).thenReturn(List.of(book));
+
+        mockMvc.perform(post("/api/v1/books/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batchRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.statusCode").value(200))
+                .andExpect(jsonPath("$.result[0].title").value("Test Book"))
+                .andDo(print());
+    }
+
+    @Test
+    @DisplayName("Should return 400 BAD REQUEST when one book of the batch is invalid")
+    void testCreateAndUpdateBooks_BadRequest() throws Exception {
+        bookUpsertRequest.setAuthor("");
+        BookBatchUpsertRequest batchRequest = new BookBatchUpsertRequest();
+        batchRequest.setBooks(List.of(bookUpsertRequest));
+
+        mockMvc.perform(post("/api/v1/books/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batchRequest)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.statusCode").value(400))
+                .andExpect(jsonPath("$.message").value("Author is required"))
+                .andDo(print());
+        Mockito.verify(bookService, Mockito.never()).createAndUpdateBooks(Mockito.anyList());
+    }
 }
@@ -0,0 +1,174 @@
+package com.backendtest.project.controller;
+
+import com.backendtest.project.dto.BookUpsertRequest;
+import com.backendtest.project.exception.GlobalExceptionHandler;
+import com.backendtest.project.exception.NotFoundException;
+import com.backendtest.project.model.Book;
+import com.backendtest.project.service.ReactiveBookService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@WebFluxTest(controllers = ReactiveBookController.class)
+@ActiveProfiles("reactive")
+@Import(GlobalExceptionHandler.class)
+public class ReactiveBookControllerTest {
+    @Autowired
+    private WebTestClient webTestClient;
+    @MockBean
+    private ReactiveBookService bookService;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private BookUpsertRequest bookUpsertRequest;
+
+    @BeforeEach
+    void setUp() {
+        bookUpsertRequest = new BookUpsertRequest();
+        bookUpsertRequest.setTitle("Test Book");
+        bookUpsertRequest.setAuthor("Author Test");
+        bookUpsertRequest.setIsbn("123-456-789-1");
+        bookUpsertRequest.setPrice(BigDecimal.valueOf(25.5));
+        bookUpsertRequest.setPublishedDate(LocalDate.of(2022, 12, 12));
+    }
+
+    private static Book book(long id, String title) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setAuthor("Author " + id);
+        book.setIsbn("101-100-102-102-" + id);
+        book.setPrice(BigDecimal.valueOf(10.99));
+        book.setPublishedDate(LocalDate.of(2020, 1, 1));
+        return book;
+    }
+
+    @Test
+    @DisplayName("Should return the book wrapped in the response envelope")
+    void testGetBookById_Success() {
+        // Arrange
+        Mockito.when(bookService.findById(1L)).thenReturn(Mono.just(book(1L, "Book 1")));
+
+        // Act & Assert
+        webTestClient.get().uri("/api/v1/book/1").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.statusCode").isEqualTo(200)
+                .jsonPath("$.message").isEqualTo("success")
+                .jsonPath("$.result.title").isEqualTo("Book 1");
+    }
+
+    @Test
+    @DisplayName("Should return 404 Not Found when book Id does not exist")
+    void testGetBookById_NotFound() {
+        // Arrange
+        Mockito.when(bookService.findById(99L)).thenReturn(Mono.error(new NotFoundException("Book not found.")));
+
+        // Act & Assert
+        webTestClient.get().uri("/api/v1/book/99").exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.statusCode").isEqualTo(404)
+                .jsonPath("$.message").isEqualTo("Book not found.");
+    }
+
+    @Test
+    @DisplayName("Should return 400 BAD REQUEST with the validation message when the request body is invalid")
+    void testCreateAndUpdateBook_BadRequest() {
+        // Arrange
+        bookUpsertRequest.setAuthor("");
+
+        // Act & Assert
+        webTestClient.post().uri("/api/v1/books").contentType(MediaType.APPLICATION_JSON).bodyValue(bookUpsertRequest)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.statusCode").isEqualTo(400)
+                .jsonPath("$.message").isEqualTo("Author is required");
+        Mockito.verifyNoInteractions(bookService);
+    }
+
+    @Test
+    @DisplayName("Should return 400 BAD REQUEST when the published date is not in format MM-dd-yyyy")
+    void testCreateAndUpdateBook_InvalidPublishedDate() throws Exception {
+        // Arrange
+        String jsonRequest = objectMapper.writeValueAsString(bookUpsertRequest).replace("12-12-2022", "2022-12-12");
+
+        // Act & Assert
+        webTestClient.post().uri("/api/v1/books").contentType(MediaType.APPLICATION_JSON).bodyValue(jsonRequest)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.statusCode").isEqualTo(400)
+                .jsonPath("$.message").isEqualTo("Published date must be in format MM-dd-yyyy");
+        Mockito.verifyNoInteractions(bookService);
+    }
+
+    @Test
+    @DisplayName("Should create the book and return a success response")
+    void testCreateAndUpdateBook_Success() {
+        // Arrange
+        Mockito.when(bookService.createAndUpdateBook(Mockito.any())).thenReturn(Mono.just(book(1L, "Test Book")));
+
+        // Act & Assert
+        webTestClient.post().uri("/api/v1/books").contentType(MediaType.APPLICATION_JSON).bodyValue(bookUpsertRequest)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.statusCode").isEqualTo(200)
+                .jsonPath("$.message").isEqualTo("success");
+    }
+
+    @Test
+    @DisplayName("Should stream all books as a JSON array inside the response envelope")
+    void testExportBooks_Json() {
+        // Arrange
+        Mockito.when(bookService.findAll()).thenReturn(Flux.just(book(1L, "Book 1"), book(2L, "Book 2")));
+
+        // Act & Assert
+        webTestClient.get().uri("/api/v1/books/export").exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.statusCode").isEqualTo(200)
+                .jsonPath("$.message").isEqualTo("success")
+                .jsonPath("$.result.length()").isEqualTo(2)
+                .jsonPath("$.result[0].title").isEqualTo("Book 1")
+                .jsonPath("$.result[1].title").isEqualTo("Book 2");
+    }
+
+    @Test
+    @DisplayName("Should stream all books as newline-delimited JSON")
+    void testExportBooks_Ndjson() throws Exception {
+        // Arrange
+        Mockito.when(bookService.findAll()).thenReturn(Flux.just(book(1L, "Book 1"), book(2L, "Book 2")));
+
+        // Act
+        String body = webTestClient.get().uri("/api/v1/books/export?format=ndjson").exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class).returnResult().getResponseBody();
+
+        // Assert
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("Book 1", objectMapper.readTree(lines[0]).get("title").asText());
+        assertEquals("Book 2", objectMapper.readTree(lines[1]).get("title").asText());
+    }
+}
@@ -0,0 +1,81 @@
+package com.backendtest.project.json;
+
+import com.backendtest.project.dto.BookView;
+import com.backendtest.project.model.Book;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.AnnotatedClass;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that {@link BookSerializer} and {@link BookViewSerializer} write the JSON of the reflective bean serializer,
+ * with mappers built like the one Spring Boot gives to the HTTP message converters (dates not written as timestamps).
+ */
+public class BookSerializerTest {
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private final ObjectMapper beanObjectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .annotationIntrospector(new JacksonAnnotationIntrospector() {
+                @Override
+                public Object findSerializer(Annotated a) {
+                    // Ignore the class-level @JsonSerialize, as before the hand-written serializers
+                    return a instanceof AnnotatedClass ? null : super.findSerializer(a);
+                }
+            })
+            .build();
+
+    private static Book book(Long id, LocalDate publishedDate, BigDecimal price) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle("Title \"quoted\" é");
+        book.setAuthor("Author");
+        book.setIsbn("123-456-789-1");
+        book.setPublishedDate(publishedDate);
+        book.setPrice(price);
+        book.setVersion(3L);
+        return book;
+    }
+
+    @Test
+    @DisplayName("Should write a book as the bean serializer does")
+    void testSerializeBook_SameAsBeanSerializer() throws Exception {
+        for (Book book : new Book[]{
+                book(1L, LocalDate.of(2020, 1, 31), new BigDecimal("25.50")),
+                book(2L, LocalDate.of(987, 12, 1), new BigDecimal("1E+3")),
+                book(null, null, null)}) {
+            // Act
+            String json = objectMapper.writeValueAsString(book);
+
+            // Assert
+            assertEquals(beanObjectMapper.writeValueAsString(book), json);
+        }
+        assertEquals("{\"id\":1,\"title\":\"Title \\\"quoted\\\" é\",\"author\":\"Author\",\"publishedDate\":\"2020-01-31\",\"isbn\":\"123-456-789-1\",\"price\":25.50}",
+                objectMapper.writeValueAsString(book(1L, LocalDate.of(2020, 1, 31), new BigDecimal("25.50"))));
+    }
+
+    @Test
+    @DisplayName("Should write a book view as the book it comes from")
+    void testSerializeBookView_SameAsBook() throws Exception {
+        // Arrange
+        Book book = book(1L, LocalDate.of(2020, 1, 31), new BigDecimal("25.50"));
+        BookView view = new BookView(book.getId(), book.getTitle(), book.getAuthor(), book.getPublishedDate(), book.getIsbn(), book.getPrice());
+
+        // Act
+        String json = objectMapper.writeValueAsString(view);
+
+        // Assert
+        assertEquals(objectMapper.writeValueAsString(book), json);
+        assertEquals(beanObjectMapper.writeValueAsString(view), json);
+    }
+}
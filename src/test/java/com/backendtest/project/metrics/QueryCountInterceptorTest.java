@@ -0,0 +1,62 @@
+package com.backendtest.project.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class QueryCountInterceptorTest {
+    private SimpleMeterRegistry meterRegistry;
+    private QueryCountInterceptor interceptor;
+    private QueryCountStatementInspector inspector;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        interceptor = new QueryCountInterceptor(meterRegistry);
+        inspector = new QueryCountStatementInspector();
+    }
+
+    @Test
+    @DisplayName("Should record the number of statements executed during the request under the endpoint URI template")
+    void testRecordsStatementsPerRequest() {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/book/1");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/book/{id}");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        interceptor.preHandle(request, response, null);
+        inspector.inspect("select 1");
+        inspector.inspect("select 2");
+        interceptor.afterCompletion(request, response, null, null);
+        inspector.inspect("select 3");
+
+        // Assert
+        DistributionSummary summary = meterRegistry.get(QueryCountInterceptor.METRIC_NAME)
+                .tag("method", "GET").tag("uri", "/api/v1/book/{id}").summary();
+        assertEquals(1, summary.count());
+        assertEquals(2, summary.totalAmount());
+    }
+
+    @Test
+    @DisplayName("Should stop counting on the request thread once asynchronous handling starts")
+    void testStopsCountingWhenAsyncHandlingStarts() {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/books/export");
+
+        // Act
+        interceptor.preHandle(request, new MockHttpServletResponse(), null);
+        interceptor.afterConcurrentHandlingStarted(request, new MockHttpServletResponse(), null);
+        inspector.inspect("select 1");
+
+        // Assert
+        assertEquals(0, QueryCountStatementInspector.stop());
+    }
+}
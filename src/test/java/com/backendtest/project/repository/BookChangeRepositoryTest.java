@@ -0,0 +1,74 @@
+package com.backendtest.project.repository;
+
+import com.backendtest.project.config.JpaConfig;
+import com.backendtest.project.model.Book;
+import com.backendtest.project.model.BookChange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the change feed queries of {@link BookChangeRepository} against an in-memory H2 database.
+ */
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:book-changes;MODE=MySQL")
+@Import(JpaConfig.class)
+public class BookChangeRepositoryTest {
+    @Autowired
+    private BookChangeRepository bookChangeRepository;
+
+    private List<BookChange> changes;
+
+    @BeforeEach
+    void setUp() {
+        bookChangeRepository.deleteAll();
+        Book book = new Book();
+        book.setId(1L);
+        book.setTitle("Book 1");
+        book.setAuthor("Author 1");
+        book.setIsbn("123-456-789-1");
+        book.setPrice(BigDecimal.TEN);
+        book.setPublishedDate(LocalDate.of(2020, 1, 1));
+        BookChange created = BookChange.of(BookChange.Type.CREATED, book);
+        created.setOccurredAt(Instant.parse("2024-05-01T10:00:00Z"));
+        BookChange updated = BookChange.of(BookChange.Type.UPDATED, book);
+        updated.setOccurredAt(Instant.parse("2024-05-01T10:00:01Z"));
+        BookChange deleted = BookChange.deleted(1L);
+        deleted.setOccurredAt(Instant.parse("2024-05-01T10:00:02Z"));
+        changes = bookChangeRepository.saveAll(List.of(created, updated, deleted));
+    }
+
+    @Test
+    @DisplayName("Should read the changes after a sequence number in order")
+    void testFindAfter() {
+        // Act
+        List<BookChange> all = bookChangeRepository.findAfter(0L, Limit.of(10));
+        List<BookChange> following = bookChangeRepository.findAfter(changes.get(0).getSeq(), Limit.of(1));
+
+        // Assert
+        assertEquals(List.of(BookChange.Type.CREATED, BookChange.Type.UPDATED, BookChange.Type.DELETED), all.stream().map(BookChange::getType).toList());
+        assertEquals(List.of(changes.get(1).getSeq()), following.stream().map(BookChange::getSeq).toList());
+        assertEquals("Book 1", following.get(0).getTitle());
+    }
+
+    @Test
+    @DisplayName("Should purge the changes older than a given time")
+    void testDeleteOccurredBefore() {
+        // Act
+        int purged = bookChangeRepository.deleteOccurredBefore(Instant.parse("2024-05-01T10:00:01Z"));
+
+        // Assert
+        assertEquals(1, purged);
+        assertEquals(2, bookChangeRepository.count());
+    }
+}
@@ -0,0 +1,114 @@
+package com.backendtest.project.repository;
+
+import com.backendtest.project.config.JpaConfig;
+import com.backendtest.project.model.Book;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the second-level and query cache of the books against an in-memory H2 database. The tests run outside of a
+ * transaction, so each repository call has its own persistence context and can only be served by the caches.
+ */
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:cached-books;MODE=MySQL")
+@Import(JpaConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BookRepositoryCacheTest {
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics statistics;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository.deleteAll();
+        book = bookRepository.save(book(1));
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+        statistics.clear();
+    }
+
+    private static Book book(int number) {
+        Book book = new Book();
+        book.setTitle("Book " + number);
+        book.setAuthor("Author " + number);
+        book.setIsbn("123-456-789-" + number);
+        book.setPrice(BigDecimal.TEN);
+        book.setPublishedDate(LocalDate.of(2020, 1, number));
+        return book;
+    }
+
+    @Test
+    @DisplayName("Should load a book by id from the second-level cache after the first read")
+    void testFindById_SecondLevelCache() {
+        // Act
+        bookRepository.findById(book.getId());
+        bookRepository.findById(book.getId());
+
+        // Assert
+        assertEquals(1, statistics.getSecondLevelCacheMissCount());
+        assertEquals(1, statistics.getSecondLevelCacheHitCount());
+        assertEquals(1, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    @DisplayName("Should serve a repeated ISBN lookup from the query cache until a book is inserted")
+    void testFindByIsbn_QueryCache() {
+        // Act
+        bookRepository.findByIsbn("123-456-789-1");
+        bookRepository.findByIsbn("123-456-789-1");
+        long hitsBeforeInsert = statistics.getQueryCacheHitCount();
+        bookRepository.save(book(2));
+        boolean found = bookRepository.findByIsbn("123-456-789-1").isPresent();
+
+        // Assert
+        assertEquals(1, hitsBeforeInsert);
+        assertEquals(1, statistics.getQueryCacheHitCount());
+        assertEquals(2, statistics.getQueryCachePutCount());
+        assertTrue(found);
+    }
+
+    @Test
+    @DisplayName("Should evict only the updated book from the second-level cache")
+    void testUpdate_EvictsOnlyUpdatedBook() {
+        // Arrange
+        Book other = bookRepository.save(book(2));
+        bookRepository.findById(book.getId());
+        bookRepository.findById(other.getId());
+        statistics.clear();
+
+        // Act
+        transactionTemplate.executeWithoutResult(status -> {
+            Book managed = bookRepository.findById(book.getId()).orElseThrow();
+            managed.setTitle("Renamed");
+        });
+        Book reloaded = bookRepository.findById(book.getId()).orElseThrow();
+        bookRepository.findById(other.getId());
+
+        // Assert
+        assertEquals("Renamed", reloaded.getTitle());
+        assertEquals(1, reloaded.getVersion());
+        assertEquals(0, statistics.getSecondLevelCacheMissCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+}
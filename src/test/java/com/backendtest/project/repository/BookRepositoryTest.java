@@ -0,0 +1,112 @@
+package com.backendtest.project.repository;
+
+import com.backendtest.project.config.JpaConfig;
+import com.backendtest.project.dto.BookVersion;
+import com.backendtest.project.dto.BookView;
+import com.backendtest.project.model.Book;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the projection queries and the versioned update of {@link BookRepository} against an in-memory H2 database.
+ */
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:projection-books;MODE=MySQL")
+@Import(JpaConfig.class)
+public class BookRepositoryTest {
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    private List<Long> ids;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository.deleteAll();
+        ids = List.of(save(1), save(2), save(3));
+        // Start every test with an empty persistence context
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private Long save(int number) {
+        Book book = new Book();
+        book.setTitle("Book " + number);
+        book.setAuthor("Author " + number);
+        book.setIsbn("123-456-789-" + number);
+        book.setPrice(BigDecimal.valueOf(number * 10L, 2));
+        book.setPublishedDate(LocalDate.of(2020, 1, number));
+        return bookRepository.save(book).getId();
+    }
+
+    @Test
+    @DisplayName("Should read views without loading entities into the persistence context")
+    void testViews_NotManaged() {
+        // Act
+        List<BookView> all = bookRepository.findAllViews(Limit.unlimited());
+        Slice<BookView> page = bookRepository.findViewsBy(PageRequest.of(1, 1));
+        List<BookView> after = bookRepository.findViewsAfter(ids.get(0), Limit.of(5));
+
+        // Assert
+        assertEquals(new BookView(ids.get(0), "Book 1", "Author 1", LocalDate.of(2020, 1, 1), "123-456-789-1",
+                BigDecimal.valueOf(10, 2)), all.get(0));
+        assertEquals(List.of("Book 2"), page.getContent().stream().map(BookView::title).toList());
+        assertTrue(page.hasNext());
+        assertEquals(ids.subList(1, 3), after.stream().map(BookView::id).toList());
+        assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+    }
+
+    @Test
+    @DisplayName("Should read only the selected fields, always with the id first")
+    void testFindFields() {
+        // Act
+        List<Map<String, Object>> rows = bookRepository.findFields(List.of("price", "title"), ids.get(0), 0, 1);
+
+        // Assert
+        assertEquals(1, rows.size());
+        assertEquals(List.of("id", "price", "title"), List.copyOf(rows.get(0).keySet()));
+        assertEquals(ids.get(1), rows.get(0).get("id"));
+        assertEquals("Book 2", rows.get(0).get("title"));
+        assertEquals(3, bookRepository.findFields(List.of("isbn"), 0L, 0, -1).size());
+    }
+
+    @Test
+    @DisplayName("Should bump the version on update and reject the update of a stale copy")
+    void testUpdate_BumpsVersion() {
+        // Arrange
+        Long id = ids.get(0);
+        Book stale = bookRepository.findById(id).orElseThrow();
+        entityManager.detach(stale);
+        Book book = bookRepository.findById(id).orElseThrow();
+
+        // Act
+        book.setTitle("New title");
+        bookRepository.saveAndFlush(book);
+        stale.setTitle("Stale title");
+
+        // Assert
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> bookRepository.saveAndFlush(stale));
+        entityManager.clear();
+        BookVersion version = bookRepository.findVersionById(id).orElseThrow();
+        assertEquals(1L, version.version());
+        assertNotNull(version.updatedAt());
+        assertEquals("New title", bookRepository.findById(id).orElseThrow().getTitle());
+    }
+}
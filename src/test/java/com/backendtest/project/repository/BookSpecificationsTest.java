@@ -0,0 +1,105 @@
+package com.backendtest.project.repository;
+
+import com.backendtest.project.config.JpaConfig;
+import com.backendtest.project.dto.BookRangeFilter;
+import com.backendtest.project.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the range filter specifications against an in-memory H2 database.
+ * {@link JpaConfig} keeps the reactive repository out of the JPA repository scan.
+ */
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:range-books;MODE=MySQL")
+@Import(JpaConfig.class)
+public class BookSpecificationsTest {
+    @Autowired
+    private BookRepository bookRepository;
+
+    private List<Long> ids;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository.deleteAll();
+        ids = List.of(
+                save("Book 1", "10.00", LocalDate.of(2020, 1, 1)),
+                save("Book 2", "20.00", LocalDate.of(2021, 6, 1)),
+                save("Book 3", "20.00", LocalDate.of(2022, 3, 1)),
+                save("Book 4", "30.00", LocalDate.of(2023, 9, 1)));
+    }
+
+    private Long save(String title, String price, LocalDate publishedDate) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setAuthor("Author");
+        book.setIsbn("123-456-789-" + title.substring(5));
+        book.setPrice(new BigDecimal(price));
+        book.setPublishedDate(publishedDate);
+        return bookRepository.save(book).getId();
+    }
+
+    private List<String> titles(Specification<Book> spec, BookRangeFilter filter, int limit) {
+        return bookRepository.findBy(spec, query -> query
+                        .sortBy(BookSpecifications.orderBy(filter.getSortBy(), filter.getDirection()))
+                        .limit(limit)
+                        .all())
+                .stream().map(Book::getTitle).toList();
+    }
+
+    @Test
+    @DisplayName("Should keep only the books within the inclusive price bounds")
+    void testInRange_Price() {
+        // Arrange
+        BookRangeFilter filter = new BookRangeFilter();
+        filter.setMinPrice(new BigDecimal("20.00"));
+
+        // Act & Assert
+        assertEquals(List.of("Book 2", "Book 3", "Book 4"), titles(BookSpecifications.inRange(filter), filter, 10));
+        filter.setMaxPrice(new BigDecimal("20.00"));
+        assertEquals(List.of("Book 2", "Book 3"), titles(BookSpecifications.inRange(filter), filter, 10));
+    }
+
+    @Test
+    @DisplayName("Should filter on published date and sort by it in descending order")
+    void testInRange_PublishedDateDescending() {
+        // Arrange
+        BookRangeFilter filter = new BookRangeFilter();
+        filter.setPublishedFrom(LocalDate.of(2021, 6, 1));
+        filter.setPublishedTo(LocalDate.of(2023, 9, 1));
+        filter.setSortBy(BookRangeFilter.SortField.PUBLISHED_DATE);
+        filter.setDirection(Sort.Direction.DESC);
+
+        // Act & Assert
+        assertEquals(List.of("Book 4", "Book 3", "Book 2"), titles(BookSpecifications.inRange(filter), filter, 10));
+    }
+
+    @Test
+    @DisplayName("Should resume after the last row of a page, ordering books with the same price by id")
+    void testAfter_TiesOnSortColumn() {
+        // Arrange
+        BookRangeFilter filter = new BookRangeFilter();
+        Specification<Book> afterBook2 = BookSpecifications.inRange(filter).and(
+                BookSpecifications.after(filter.getSortBy(), Sort.Direction.ASC, new BigDecimal("20.00"), ids.get(1)));
+        filter.setDirection(Sort.Direction.DESC);
+        Specification<Book> beforeBook3 = BookSpecifications.inRange(filter).and(
+                BookSpecifications.after(filter.getSortBy(), Sort.Direction.DESC, new BigDecimal("20.00"), ids.get(2)));
+
+        // Act & Assert
+        filter.setDirection(Sort.Direction.ASC);
+        assertEquals(List.of("Book 3", "Book 4"), titles(afterBook2, filter, 10));
+        filter.setDirection(Sort.Direction.DESC);
+        assertEquals(List.of("Book 2", "Book 1"), titles(beforeBook3, filter, 10));
+    }
+}
@@ -0,0 +1,103 @@
+package com.backendtest.project.service;
+
+import com.backendtest.project.dto.BookChangePage;
+import com.backendtest.project.model.BookChange;
+import com.backendtest.project.repository.BookChangeRepository;
+import com.backendtest.project.service.Impl.BookChangeServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BookChangeServiceImplTest {
+
+    @Mock
+    private BookChangeRepository bookChangeRepository;
+
+    @BeforeEach
+    void setUp() {
+        // Init mock annotations
+        MockitoAnnotations.openMocks(this);
+    }
+
+    private static BookChange change(long seq) {
+        BookChange change = BookChange.deleted(seq);
+        change.setSeq(seq);
+        return change;
+    }
+
+    private static List<Long> seqs(BookChangePage response) {
+        return response.changes().stream().map(BookChange::getSeq).toList();
+    }
+
+    @Test
+    @DisplayName("Should stop at a missing sequence number until it is committed")
+    void testFindChanges_whenSequenceHasGap_shouldHoldBackLaterChanges() {
+        // Arrange
+        BookChangeServiceImpl bookChangeService = new BookChangeServiceImpl(bookChangeRepository, Duration.ofMinutes(1), Duration.ofDays(7), Duration.ofMinutes(30), Runnable::run);
+        when(bookChangeRepository.findAfter(eq(4L), eq(Limit.of(10))))
+                .thenReturn(List.of(change(5), change(6), change(8)))
+                .thenReturn(List.of(change(5), change(6), change(7), change(8)));
+
+        // Act
+        BookChangePage beforeCommit = bookChangeService.findChanges(4L, 10);
+        BookChangePage afterCommit = bookChangeService.findChanges(4L, 10);
+
+        // Assert
+        assertEquals(List.of(5L, 6L), seqs(beforeCommit));
+        assertEquals(6L, beforeCommit.nextSince());
+        assertEquals(List.of(5L, 6L, 7L, 8L), seqs(afterCommit));
+        assertEquals(8L, afterCommit.nextSince());
+    }
+
+    @Test
+    @DisplayName("Should skip a sequence number missing for longer than the gap timeout")
+    void testFindChanges_whenGapTimedOut_shouldSkipIt() {
+        // Arrange
+        BookChangeServiceImpl bookChangeService = new BookChangeServiceImpl(bookChangeRepository, Duration.ZERO, Duration.ofDays(7), Duration.ofMinutes(30), Runnable::run);
+        when(bookChangeRepository.findAfter(anyLong(), eq(Limit.of(10)))).thenReturn(List.of(change(5), change(8)));
+
+        // Act
+        BookChangePage response = bookChangeService.findChanges(4L, 10);
+
+        // Assert
+        assertEquals(List.of(5L, 8L), seqs(response));
+        assertEquals(8L, response.nextSince());
+    }
+
+    @Test
+    @DisplayName("Should hand the sends to the send pool and skip a stream still sending")
+    void testPublish_whenStreamStillSending_shouldNotWaitForIt() {
+        // Arrange
+        List<Runnable> sends = new ArrayList<>();
+        BookChangeServiceImpl bookChangeService = new BookChangeServiceImpl(bookChangeRepository, Duration.ofMinutes(1), Duration.ofDays(7), Duration.ofMinutes(30), sends::add);
+        when(bookChangeRepository.findAfter(eq(4L), any())).thenReturn(List.of(change(5)));
+        when(bookChangeRepository.findAfter(eq(5L), any())).thenReturn(List.of());
+        bookChangeService.subscribe(4L);
+
+        // Act
+        bookChangeService.publish();
+        bookChangeService.publish();
+        sends.forEach(Runnable::run);
+        bookChangeService.publish();
+
+        // Assert
+        assertEquals(1, sends.size());
+        verify(bookChangeRepository, times(1)).findAfter(eq(4L), any());
+        verify(bookChangeRepository, times(1)).findAfter(eq(5L), any());
+    }
+}
@@ -0,0 +1,233 @@
+package com.backendtest.project.service;
+
+import com.backendtest.project.cache.BookCache;
+import com.backendtest.project.cache.BookCountCache;
+import com.backendtest.project.cache.BookPageCache;
+import com.backendtest.project.cache.BookSearchIndex;
+import com.backendtest.project.cache.IsbnIndex;
+import com.backendtest.project.dto.BookImportResult;
+import com.backendtest.project.service.Impl.BookImportServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.hibernate.SessionFactory;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+public class BookImportServiceImplTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private IsbnIndex isbnIndex;
+
+    @Mock
+    private BookCountCache bookCountCache;
+
+    @Mock
+    private BookCache bookCache;
+
+    @Mock
+    private BookPageCache bookPageCache;
+
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private SessionFactory sessionFactory;
+
+    private BookImportServiceImpl bookImportService;
+
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    @BeforeEach
+    void setUp() {
+        // Init mock annotations
+        MockitoAnnotations.openMocks(this);
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+        bookImportService = new BookImportServiceImpl(new ObjectMapper(), validator, jdbcTemplate,
+                new TransactionTemplate(transactionManager), isbnIndex, bookCountCache, bookCache, bookPageCache, bookSearchIndex,
+                sessionFactory, 2);
+    }
+
+    /**
+     * Makes the mocked batch insert succeed and hand out generated ids.
+     */
+    private void stubSuccessfulInsert() {
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class)))
+                .thenAnswer(invocation -> {
+                    BatchPreparedStatementSetter setter = invocation.getArgument(1);
+                    KeyHolder keyHolder = invocation.getArgument(2);
+                    for (int i = 0; i < setter.getBatchSize(); i++) {
+                        keyHolder.getKeyList().add(Map.of("GENERATED_KEY", nextId.getAndIncrement()));
+                    }
+                    return new int[setter.getBatchSize()];
+                });
+    }
+
+    private static ByteArrayInputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Import NDJSON in batches and report invalid rows without aborting")
+    void testImportBooks_whenNdjsonHasInvalidRow_shouldImportTheOthers() throws IOException {
+        // Arrange
+        stubSuccessfulInsert();
+        String ndjson = """
+                {"title":"Book 1","author":"Author 1","publishedDate":"01-01-2020","isbn":"101-100-102-1","price":10.5}
+                {"title":"Book 2","author":"","publishedDate":"01-01-2020","isbn":"101-100-102-2","price":10.5}
+                {"title":"Book 3","author":"Author 3","publishedDate":"01-01-2020","isbn":"101-100-102-3","price":10.5}
+                {"title":"Book 4","author":"Author 4","publishedDate":"01-01-2020","isbn":"101-100-102-4","price":10.5}
+                """;
+
+        // Act
+        BookImportResult result = bookImportService.importBooks(body(ndjson), MediaType.APPLICATION_NDJSON);
+
+        // Assert
+        assertEquals(4, result.getReceived());
+        assertEquals(3, result.getImported());
+        assertEquals(1, result.getFailed());
+        assertEquals(2, result.getErrors().get(0).getRow());
+        assertEquals("Author is required", result.getErrors().get(0).getMessage());
+        // 3 valid rows with a batch size of 2
+        verify(jdbcTemplate, times(2)).batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class));
+        verify(isbnIndex).put(1L, "101-100-102-1");
+        verify(isbnIndex).put(3L, "101-100-102-4");
+        verify(bookCountCache).increment(2);
+        verify(bookCountCache).increment(1);
+        verify(sessionFactory.getCache(), times(2)).evictQueryRegions();
+    }
+
+    @Test
+    @DisplayName("Import CSV with a header row and reject ISBNs repeated within the feed")
+    void testImportBooks_whenCsvRepeatsIsbn_shouldRejectTheDuplicate() throws IOException {
+        // Arrange
+        stubSuccessfulInsert();
+        String csv = """
+                title,author,publishedDate,isbn,price
+                Book 1,Author 1,01-01-2020,101-100-102-1,10.50
+                Book 2,Author 2,01-01-2020,101-100-102-1,12.00
+                """;
+
+        // Act
+        BookImportResult result = bookImportService.importBooks(body(csv), MediaType.parseMediaType("text/csv"));
+
+        // Assert
+        assertEquals(2, result.getReceived());
+        assertEquals(1, result.getImported());
+        assertEquals("Duplicate ISBN in import.", result.getErrors().get(0).getMessage());
+        assertEquals(2, result.getErrors().get(0).getRow());
+    }
+
+    @Test
+    @DisplayName("Reject rows with a value of the wrong type or an invalid date and continue with the next rows")
+    void testImportBooks_whenRowHasWrongType_shouldContinue() throws IOException {
+        // Arrange
+        stubSuccessfulInsert();
+        String json = """
+                [{"title":"Book 1","author":"Author 1","publishedDate":"01-01-2020","isbn":"101-100-102-1","price":"abc"},
+                 {"title":"Book 2","author":"Author 2","publishedDate":"02-30-2020","isbn":"101-100-102-2","price":12},
+                 {"title":"Book 3","author":"Author 3","publishedDate":"01-01-2020","isbn":"101-100-102-3","price":12}]
+                """;
+
+        // Act
+        BookImportResult result = bookImportService.importBooks(body(json), MediaType.APPLICATION_JSON);
+
+        // Assert
+        assertEquals(3, result.getReceived());
+        assertEquals(1, result.getImported());
+        assertEquals(1, result.getErrors().get(0).getRow());
+        assertEquals(2, result.getErrors().get(1).getRow());
+    }
+
+    @Test
+    @DisplayName("When a batch fails, retry its rows one by one and reject only the conflicting ones")
+    void testImportBooks_whenBatchFails_shouldRetryRowByRow() throws IOException {
+        // Arrange
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class)))
+                .thenThrow(new DuplicateKeyException("Duplicate entry"))
+                .thenAnswer(invocation -> {
+                    ((KeyHolder) invocation.getArgument(2)).getKeyList().add(Map.of("GENERATED_KEY", 7L));
+                    return new int[1];
+                })
+                .thenThrow(new DuplicateKeyException("Duplicate entry"));
+        String ndjson = """
+                {"title":"Book 1","author":"Author 1","publishedDate":"01-01-2020","isbn":"101-100-102-1","price":10.5}
+                {"title":"Book 2","author":"Author 2","publishedDate":"01-01-2020","isbn":"101-100-102-2","price":10.5}
+                """;
+
+        // Act
+        BookImportResult result = bookImportService.importBooks(body(ndjson), MediaType.APPLICATION_NDJSON);
+
+        // Assert
+        assertEquals(1, result.getImported());
+        assertEquals(1, result.getFailed());
+        assertEquals(2, result.getErrors().get(0).getRow());
+        assertEquals("Book with ISBN has already existed.", result.getErrors().get(0).getMessage());
+        verify(isbnIndex).put(7L, "101-100-102-1");
+    }
+
+    @Test
+    @DisplayName("When the driver returns fewer generated keys than rows, roll the batch back and retry row by row")
+    void testImportBooks_whenKeysAreMissing_shouldRetryRowByRow() throws IOException {
+        // Arrange
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class)))
+                .thenAnswer(invocation -> {
+                    ((KeyHolder) invocation.getArgument(2)).getKeyList().add(Map.of("GENERATED_KEY", 1L));
+                    return new int[2];
+                })
+                .thenAnswer(invocation -> {
+                    ((KeyHolder) invocation.getArgument(2)).getKeyList().add(Map.of("GENERATED_KEY", 7L));
+                    return new int[1];
+                })
+                .thenAnswer(invocation -> {
+                    ((KeyHolder) invocation.getArgument(2)).getKeyList().add(Map.of("GENERATED_KEY", 8L));
+                    return new int[1];
+                });
+        String ndjson = """
+                {"title":"Book 1","author":"Author 1","publishedDate":"01-01-2020","isbn":"101-100-102-1","price":10.5}
+                {"title":"Book 2","author":"Author 2","publishedDate":"01-01-2020","isbn":"101-100-102-2","price":10.5}
+                """;
+
+        // Act
+        BookImportResult result = bookImportService.importBooks(body(ndjson), MediaType.APPLICATION_NDJSON);
+
+        // Assert
+        assertEquals(2, result.getImported());
+        verify(transactionManager, times(1)).rollback(any());
+        verify(isbnIndex).put(7L, "101-100-102-1");
+        verify(isbnIndex).put(8L, "101-100-102-2");
+        verify(isbnIndex, never()).put(isNull(), anyString());
+        // The change outbox is only written for the rows with an id
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), any(BatchPreparedStatementSetter.class));
+    }
+}
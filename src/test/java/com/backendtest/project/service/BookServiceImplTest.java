@@ -1,21 +1,69 @@
 package com.backendtest.project.service;
 
+import com.backendtest.project.cache.BookCache;
+import com.backendtest.project.cache.BookCountCache;
+import com.backendtest.project.cache.BookPageCache;
+import com.backendtest.project.cache.BookSearchIndex;
+import com.backendtest.project.cache.IsbnIndex;
+import com.backendtest.project.dto.BookCursorPage;
+import com.backendtest.project.dto.BookLookup;
+import com.backendtest.project.dto.BookPage;
+import com.backendtest.project.dto.BookRangeFilter;
 import com.backendtest.project.dto.BookUpsertRequest;
+import com.backendtest.project.dto.BookVersion;
+import com.backendtest.project.dto.BookView;
 import com.backendtest.project.exception.AlreadyExistException;
+import com.backendtest.project.exception.BadRequestException;
+import com.backendtest.project.exception.InvalidCursorException;
 import com.backendtest.project.exception.InvalidDateException;
 import com.backendtest.project.exception.NotFoundException;
+import com.backendtest.project.exception.PreconditionFailedException;
+import com.backendtest.project.exception.ServiceUnavailableException;
 import com.backendtest.project.model.Book;
+import com.backendtest.project.model.BookChange;
+import com.backendtest.project.repository.BookChangeRepository;
 import com.backendtest.project.repository.BookRepository;
 import com.backendtest.project.service.Impl.BookServiceImpl;
+import com.backendtest.project.util.CursorCodec;
+import com.backendtest.project.util.SingleFlight;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
 
 import java.math.BigDecimal;
 import java.text.ParseException;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -25,6 +73,34 @@ public class BookServiceImplTest {
     @Mock
     private BookRepository bookRepository;
 
+    @Mock
+    private BookChangeRepository bookChangeRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private BookCountCache bookCountCache;
+
+    @Mock
+    private IsbnIndex isbnIndex;
+
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+
+    @Spy
+    private BookPageCache bookPageCache = new BookPageCache(new ObjectMapper().findAndRegisterModules(),
+            DataSize.ofMegabytes(1), Duration.ofMinutes(1), DataSize.ofKilobytes(2));
+
+    @Spy
+    private BookCache bookCache = new BookCache(100, Duration.ofMinutes(10), Duration.ofSeconds(30));
+
+    @Spy
+    private SingleFlight singleFlight = new SingleFlight(Duration.ofSeconds(2));
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
     @InjectMocks
     private BookServiceImpl bookService;
 
@@ -42,7 +118,7 @@ public class BookServiceImplTest {
         bookUpsertRequest.setAuthor("Author Test");
         bookUpsertRequest.setIsbn("123-456-789-1");
         bookUpsertRequest.setPrice(BigDecimal.valueOf(25.5));
-        bookUpsertRequest.setPublishedDate("12-12-2022");
+        bookUpsertRequest.setPublishedDate(LocalDate.of(2022, 12, 12));
 
         // Create sample book in database
         existingBook = new Book();
@@ -54,13 +130,17 @@ public class BookServiceImplTest {
         existingBook.setPublishedDate(LocalDate.now());
     }
 
+    private static BookView view(long id) {
+        return new BookView(id, "Book " + id, "Author", LocalDate.of(2020, 1, 1), "123-456-789-" + id, BigDecimal.TEN);
+    }
+
     @Test
     @DisplayName("Create and update book when book ID exists, should update book")
     void testCreateAndUpdateBook_whenBookIdExists_shouldUpdateBook() throws ParseException {
         // Arrange
-        when(bookRepository.findById(anyLong())).thenReturn(Optional.of(existingBook));
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(existingBook));
+        when(bookRepository.saveAndFlush(existingBook)).thenReturn(existingBook);
         when(bookRepository.findByIsbn(anyString())).thenReturn(Optional.empty());
-        when(bookRepository.save(any(Book.class))).thenReturn(existingBook);
 
         // Act
         Book updatedBook = bookService.createAndUpdateBook(bookUpsertRequest);
@@ -70,6 +150,8 @@ public class BookServiceImplTest {
         assertEquals("Test Book", updatedBook.getTitle());
         assertEquals("Author Test", updatedBook.getAuthor());
         assertEquals("123-456-789-1", updatedBook.getIsbn());
+        verify(bookChangeRepository, times(1)).save(argThat(change -> change.getType() == BookChange.Type.UPDATED
+                && change.getBookId() == 1L && "Test Book".equals(change.getTitle())));
     }
 
     @Test
@@ -95,7 +177,7 @@ public class BookServiceImplTest {
     void testCreateAndUpdateBook_whenPublishedDateIsInTheFuture_shouldThrowInvalidDateException() throws ParseException {
         // Arrange
         when(bookRepository.findById(1L)).thenReturn(Optional.of(existingBook));
-        bookUpsertRequest.setPublishedDate("12-12-2025");
+        bookUpsertRequest.setPublishedDate(LocalDate.now().plusYears(1));
 
         // Act and Assert
         InvalidDateException exception = assertThrows(InvalidDateException.class, () -> {
@@ -143,6 +225,32 @@ public class BookServiceImplTest {
 
         // Assert
         verify(bookRepository, times(1)).delete(existingBook);
+        verify(bookCountCache, times(1)).decrement(1);
+        verify(bookPageCache, times(1)).invalidateAll();
+        verify(bookChangeRepository, times(1)).save(argThat(change -> change.getType() == BookChange.Type.DELETED && change.getBookId() == 1L));
+    }
+
+    @Test
+    @DisplayName("Update the caches, indexes and count only once the deletion has committed")
+    void testDeleteById_insideTransaction_shouldUpdateCachesAfterCommit() {
+        // Arrange
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(existingBook));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Act
+            bookService.deleteById(1L);
+            verify(bookCountCache, never()).decrement(anyLong());
+            verify(bookPageCache, never()).invalidateAll();
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+            // Assert
+            verify(bookCountCache, times(1)).decrement(1);
+            verify(bookCache, times(1)).evict(1L);
+            verify(isbnIndex, times(1)).remove(1L);
+            verify(bookPageCache, times(1)).invalidateAll();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
     }
 
     @Test
@@ -157,4 +265,607 @@ public class BookServiceImplTest {
         });
         assertEquals("Book not found.", exception.getMessage());
     }
+
+    @Test
+    @DisplayName("Stream all books to the consumer and detach each one after use")
+    void testStreamAll_shouldPassEveryBookAndDetachIt() {
+        // Arrange
+        Book anotherBook = new Book();
+        anotherBook.setId(2L);
+        when(bookRepository.streamAll()).thenReturn(Stream.of(existingBook, anotherBook));
+        List<Book> consumed = new ArrayList<>();
+
+        // Act
+        bookService.streamAll(consumed::add);
+
+        // Assert
+        assertEquals(List.of(existingBook, anotherBook), consumed);
+        verify(entityManager, times(1)).detach(existingBook);
+        verify(entityManager, times(1)).detach(anotherBook);
+    }
+
+    @Test
+    @DisplayName("Keyset page returns a next cursor pointing at the last book when more rows follow")
+    void testFindAllAfter_whenMoreRowsFollow_shouldReturnNextCursor() {
+        // Arrange
+        BookView first = view(1L);
+        BookView second = view(2L);
+        when(bookRepository.findViewsAfter(0L, Limit.of(3))).thenReturn(List.of(first, second, view(3L)));
+
+        // Act
+        BookCursorPage<BookView> page = bookService.findAllAfter("", 2);
+
+        // Assert
+        assertEquals(List.of(first, second), page.data());
+        assertEquals(CursorCodec.encodeId(2L), page.nextCursor());
+    }
+
+    @Test
+    @DisplayName("Keyset page seeks past the cursor id and returns no next cursor on the last page")
+    void testFindAllAfter_whenLastPage_shouldReturnNullCursor() {
+        // Arrange
+        when(bookRepository.findViewsAfter(1L, Limit.of(3))).thenReturn(List.of(view(2L)));
+
+        // Act
+        BookCursorPage<BookView> page = bookService.findAllAfter(CursorCodec.encodeId(1L), 2);
+
+        // Assert
+        assertEquals(List.of(view(2L)), page.data());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    @DisplayName("Keyset page with selected fields reads only these columns and takes the next cursor from the id")
+    void testFindAllAfter_withFields_shouldReadSelectedFields() {
+        // Arrange
+        List<Map<String, Object>> rows = List.of(Map.of("id", 4L, "title", "Book 4"), Map.of("id", 5L, "title", "Book 5"));
+        when(bookRepository.findFields(List.of("title"), 3L, 0, 2)).thenReturn(rows);
+
+        // Act
+        BookCursorPage<Map<String, Object>> page = bookService.findAllAfter(CursorCodec.encodeId(3L), 1, List.of("title"));
+
+        // Assert
+        assertEquals(rows.subList(0, 1), page.data());
+        assertEquals(CursorCodec.encodeId(4L), page.nextCursor());
+    }
+
+    @Test
+    @DisplayName("Throw BadRequestException when the catalog is too large to be listed at once")
+    void testFindAll_whenCatalogTooLarge_shouldThrowBadRequestException() {
+        // Arrange
+        BookView view = new BookView(1L, "Book 1", "Author 1", null, "123-456-789-1", BigDecimal.TEN);
+        when(bookRepository.findAllViews(Limit.of(BookServiceImpl.MAX_LIST_BOOKS + 1)))
+                .thenReturn(Collections.nCopies(BookServiceImpl.MAX_LIST_BOOKS + 1, view));
+
+        // Act and Assert
+        assertThrows(BadRequestException.class, () -> bookService.findAll());
+    }
+
+    @Test
+    @DisplayName("Throw BadRequestException when a selected field does not exist")
+    void testFindAll_withUnknownField_shouldThrowBadRequestException() {
+        // Act and Assert
+        assertThrows(BadRequestException.class, () -> bookService.findAll(List.of("title", "password")));
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    @DisplayName("Throw InvalidCursorException when the cursor is malformed")
+    void testFindAllAfter_whenCursorIsMalformed_shouldThrowInvalidCursorException() {
+        // Act and Assert
+        assertThrows(InvalidCursorException.class, () -> bookService.findAllAfter("not a cursor!", 5));
+        assertThrows(InvalidCursorException.class, () -> bookService.findAllAfter(CursorCodec.encode("abc"), 5));
+    }
+
+    @Test
+    @DisplayName("Range filter returns a cursor made of the sort key and id of the last book when more rows follow")
+    @SuppressWarnings("unchecked")
+    void testFindByRange_whenMoreRowsFollow_shouldReturnNextCursor() {
+        // Arrange
+        Book second = new Book();
+        second.setId(2L);
+        second.setPrice(BigDecimal.valueOf(12.50));
+        when(bookRepository.findBy(any(Specification.class), any(Function.class)))
+                .thenReturn(List.of(existingBook, second, new Book()));
+        BookRangeFilter filter = new BookRangeFilter();
+        filter.setMinPrice(BigDecimal.TEN);
+
+        // Act
+        BookCursorPage<Book> page = bookService.findByRange(filter, null, 2);
+
+        // Assert
+        assertEquals(List.of(existingBook, second), page.data());
+        assertEquals(CursorCodec.encode(BigDecimal.valueOf(12.50), 2L), page.nextCursor());
+    }
+
+    @Test
+    @DisplayName("Range filter throws InvalidCursorException when the cursor does not hold a key of the sort column")
+    void testFindByRange_whenCursorDoesNotMatchSort_shouldThrowInvalidCursorException() {
+        // Arrange
+        BookRangeFilter filter = new BookRangeFilter();
+        filter.setSortBy(BookRangeFilter.SortField.PUBLISHED_DATE);
+
+        // Act and Assert
+        assertThrows(InvalidCursorException.class, () -> bookService.findByRange(filter, CursorCodec.encode(BigDecimal.TEN, 2L), 5));
+        assertThrows(InvalidCursorException.class, () -> bookService.findByRange(filter, CursorCodec.encodeId(2L), 5));
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    @DisplayName("Creating a new book increments the maintained total count, updating does not")
+    void testCreateAndUpdateBook_shouldOnlyCountNewBooks() throws ParseException {
+        // Arrange
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(existingBook));
+        when(bookRepository.saveAndFlush(existingBook)).thenReturn(existingBook);
+        when(bookRepository.findByIsbn(anyString())).thenReturn(Optional.empty());
+        when(bookRepository.save(any(Book.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        bookService.createAndUpdateBook(bookUpsertRequest);
+        bookUpsertRequest.setBookId(null);
+        bookService.createAndUpdateBook(bookUpsertRequest);
+
+        // Assert
+        verify(bookCountCache, times(1)).increment(1);
+    }
+
+    @Test
+    @DisplayName("Paginated list takes the total from the count cache and issues no count query")
+    void testFindAllWithPagination_shouldUseCountCache() {
+        // Arrange
+        PageRequest pageable = PageRequest.of(0, 1);
+        when(bookRepository.findViewsBy(pageable)).thenReturn(new SliceImpl<>(List.of(view(1L)), pageable, true));
+        when(bookCountCache.get()).thenReturn(42L);
+
+        // Act
+        BookPage<BookView> withTotal = bookService.findAllWithPagination(pageable, true);
+        BookPage<BookView> withoutTotal = bookService.findAllWithPagination(pageable, false);
+
+        // Assert
+        assertEquals(42L, withTotal.totalCount());
+        assertTrue(withTotal.hasNext());
+        assertEquals(List.of(view(1L)), withTotal.data());
+        assertNull(withoutTotal.totalCount());
+        verify(bookCountCache, times(1)).get();
+        verify(bookRepository, never()).count();
+    }
+
+    @Test
+    @DisplayName("A page read started before a write is neither shared with later readers nor cached")
+    void testFindAllWithPagination_whenWriteLandsDuringRead_shouldNotCacheStalePage() throws Exception {
+        // Arrange
+        PageRequest pageable = PageRequest.of(0, 5);
+        BookPageCache.Key key = new BookPageCache.Key("books-pagination", 0, 5, false);
+        CountDownLatch staleReadStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(bookRepository.findViewsBy(pageable))
+                .thenAnswer(invocation -> {
+                    staleReadStarted.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return new SliceImpl<>(List.of(view(1L)), pageable, false);
+                })
+                .thenReturn(new SliceImpl<>(List.of(view(1L), view(2L)), pageable, false));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            // Act
+            Future<BookPageCache.SerializedPage> stale = executor.submit(() ->
+                    bookPageCache.get(key, () -> bookService.findAllWithPagination(pageable, false)));
+            assertTrue(staleReadStarted.await(5, TimeUnit.SECONDS));
+            // A write commits while the first read is in flight
+            bookPageCache.invalidateAll();
+            Future<BookPageCache.SerializedPage> fresh = executor.submit(() ->
+                    bookPageCache.get(key, () -> bookService.findAllWithPagination(pageable, false)));
+            BookPageCache.SerializedPage freshPage = fresh.get(5, TimeUnit.SECONDS);
+            release.countDown();
+            stale.get(5, TimeUnit.SECONDS);
+
+            // Assert
+            verify(bookRepository, times(2)).findViewsBy(pageable);
+            assertSame(freshPage, bookPageCache.get(key, () -> fail("The fresh page should be cached")));
+            assertTrue(new String(freshPage.json()).contains("Book 2"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Concurrent lookups of an uncached id share one database query")
+    void testFindById_whenCalledConcurrently_shouldHitDatabaseOnce() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        when(bookRepository.findById(1L)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(existingBook);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        // Act
+        List<Future<Book>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < 4; i++) results.add(executor.submit(() -> bookService.findById(1L)));
+            // Every lookup has missed the cache and joined the read before it completes
+            verify(singleFlight, timeout(5000).times(4)).execute(eq("book"), any(), any());
+            release.countDown();
+            for (Future<Book> result : results) assertSame(existingBook, result.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Assert
+        verify(bookRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("A book loaded while a write evicts it is returned but not cached")
+    void testFindById_whenEvictedDuringLoad_shouldNotCacheStaleBook() throws Exception {
+        // Arrange
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Book updatedBook = new Book(1L, "Updated Book", "Author Test", "123-456-789-1", BigDecimal.TEN);
+        when(bookRepository.findById(1L))
+                .thenAnswer(invocation -> {
+                    loadStarted.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return Optional.of(existingBook);
+                })
+                .thenReturn(Optional.of(updatedBook));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            // Act
+            Future<Book> stale = executor.submit(() -> bookService.findById(1L));
+            assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+            // The write commits and evicts the book while it is being read
+            bookCache.evict(1L);
+            release.countDown();
+            Book staleBook = stale.get(5, TimeUnit.SECONDS);
+            Book afterWrite = bookService.findById(1L);
+
+            // Assert
+            assertSame(existingBook, staleBook);
+            assertSame(updatedBook, afterWrite);
+            verify(bookRepository, times(2)).findById(1L);
+            verify(singleFlight, times(2)).execute(eq("book"), any(), any());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Repeated lookups of the same id are served from the cache, including missing ids")
+    void testFindById_whenCalledTwice_shouldHitDatabaseOnce() {
+        // Arrange
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(existingBook));
+        when(bookRepository.findById(99L)).thenReturn(Optional.empty());
+
+        // Act
+        bookService.findById(1L);
+        Book foundBook = bookService.findById(1L);
+        assertThrows(NotFoundException.class, () -> bookService.findById(99L));
+        assertThrows(NotFoundException.class, () -> bookService.findById(99L));
+
+        // Assert
+        assertSame(existingBook, foundBook);
+        verify(bookRepository, times(1)).findById(1L);
+        verify(bookRepository, times(1)).findById(99L);
+        // Each miss is read in a read-write transaction, which goes to the primary rather than a replica
+        verify(transactionTemplate, times(2)).execute(any());
+        assertFalse(transactionTemplate.isReadOnly());
+    }
+
+    @Test
+    @DisplayName("Updating or deleting a book invalidates its cache entry")
+    void testCreateAndUpdateBookAndDeleteById_shouldEvictCachedBook() throws ParseException {
+        // Arrange
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(existingBook));
+        when(bookRepository.saveAndFlush(existingBook)).thenReturn(existingBook);
+        when(bookRepository.findByIsbn(anyString())).thenReturn(Optional.empty());
+        bookService.findById(1L);
+
+        // Act
+        bookService.createAndUpdateBook(bookUpsertRequest);
+        bookService.findById(1L);
+        bookService.deleteById(1L);
+        bookService.findById(1L);
+
+        // Assert
+        verify(bookCache, times(2)).evict(1L);
+        // initial read, update, read after update, delete, read after delete
+        verify(bookRepository, times(5)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("With a warm ISBN index, creating a book is a single insert without ISBN lookup")
+    void testCreateAndUpdateBook_whenIsbnIndexIsWarm_shouldNotQueryIsbn() throws ParseException {
+        // Arrange
+        bookUpsertRequest.setBookId(null);
+        when(isbnIndex.isWarm()).thenReturn(true);
+        when(isbnIndex.findId("123-456-789-1")).thenReturn(Optional.empty());
+        when(bookRepository.save(any(Book.class))).thenReturn(existingBook);
+
+        // Act
+        bookService.createAndUpdateBook(bookUpsertRequest);
+
+        // Assert
+        verify(bookRepository, never()).findByIsbn(anyString());
+        verify(bookRepository, never()).findById(anyLong());
+        verify(bookRepository, times(1)).save(any(Book.class));
+        verify(isbnIndex, times(1)).put(1L, "123-456-789-1");
+    }
+
+    @Test
+    @DisplayName("A conflict reported by the ISBN index is confirmed in the database before rejecting")
+    void testCreateAndUpdateBook_whenIsbnIndexReportsConflict_shouldConfirmAndThrow() {
+        // Arrange
+        Book anotherBook = new Book();
+        anotherBook.setId(2L);
+        when(isbnIndex.isWarm()).thenReturn(true);
+        when(isbnIndex.findId("123-456-789-1")).thenReturn(Optional.of(2L));
+        when(bookRepository.findByIsbn("123-456-789-1")).thenReturn(Optional.of(anotherBook));
+
+        // Act and Assert
+        assertThrows(AlreadyExistException.class, () -> bookService.createAndUpdateBook(bookUpsertRequest));
+        verify(bookRepository, never()).saveAndFlush(any(Book.class));
+    }
+
+    @Test
+    @DisplayName("Throw NotFoundException when updating a book id that does not exist")
+    void testCreateAndUpdateBook_whenBookIdNotFound_shouldThrowNotFoundException() {
+        // Arrange
+        when(bookRepository.findByIsbn(anyString())).thenReturn(Optional.empty());
+        when(bookRepository.findById(1L)).thenReturn(Optional.empty());
+
+        // Act and Assert
+        NotFoundException exception = assertThrows(NotFoundException.class, () -> bookService.createAndUpdateBook(bookUpsertRequest));
+        assertEquals("Book not found.", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Throw PreconditionFailedException when the book to update has another version than expected")
+    void testCreateAndUpdateBook_whenVersionDiffers_shouldThrowPreconditionFailedException() {
+        // Arrange
+        when(bookRepository.findByIsbn(anyString())).thenReturn(Optional.empty());
+        existingBook.setVersion(4L);
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(existingBook));
+
+        // Act and Assert
+        assertThrows(PreconditionFailedException.class, () -> bookService.createAndUpdateBook(bookUpsertRequest, 3L));
+        verify(bookRepository, never()).saveAndFlush(any(Book.class));
+    }
+
+    @Test
+    @DisplayName("Throw PreconditionFailedException when the book is modified between the read and the update")
+    void testCreateAndUpdateBook_whenConcurrentlyModified_shouldThrowPreconditionFailedException() {
+        // Arrange
+        existingBook.setVersion(3L);
+        when(bookRepository.findByIsbn(anyString())).thenReturn(Optional.empty());
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(existingBook));
+        when(bookRepository.saveAndFlush(existingBook)).thenThrow(new ObjectOptimisticLockingFailureException(Book.class, 1L));
+
+        // Act and Assert
+        assertThrows(PreconditionFailedException.class, () -> bookService.createAndUpdateBook(bookUpsertRequest, 3L));
+        verify(bookCache, never()).evict(anyLong());
+    }
+
+    @Test
+    @DisplayName("Version lookup is served from the cache when the book is cached, from a projection otherwise")
+    void testFindVersion_shouldPreferCachedBook() {
+        // Arrange
+        existingBook.setVersion(4L);
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(existingBook));
+        when(bookRepository.findVersionById(2L)).thenReturn(Optional.of(new BookVersion(7L, null)));
+        bookService.findById(1L);
+
+        // Act
+        BookVersion cached = bookService.findVersion(1L);
+        BookVersion loaded = bookService.findVersion(2L);
+
+        // Assert
+        assertEquals(4L, cached.version());
+        assertEquals(7L, loaded.version());
+        verify(bookRepository, never()).findVersionById(1L);
+        assertThrows(NotFoundException.class, () -> bookService.findVersion(3L));
+    }
+
+    @Test
+    @DisplayName("Unique constraint violation on ISBN is reported as AlreadyExistException")
+    void testCreateAndUpdateBook_whenUniqueConstraintFails_shouldThrowAlreadyExistException() {
+        // Arrange
+        bookUpsertRequest.setBookId(null);
+        when(bookRepository.findByIsbn(anyString())).thenReturn(Optional.empty());
+        when(bookRepository.save(any(Book.class))).thenThrow(new DataIntegrityViolationException("Duplicate entry"));
+
+        // Act and Assert
+        assertThrows(AlreadyExistException.class, () -> bookService.createAndUpdateBook(bookUpsertRequest));
+        verify(bookCountCache, never()).increment(anyLong());
+    }
+
+    private BookUpsertRequest newRequest(Long bookId, String isbn) {
+        BookUpsertRequest request = new BookUpsertRequest();
+        request.setBookId(bookId);
+        request.setTitle("Title " + isbn);
+        request.setAuthor("Author");
+        request.setIsbn(isbn);
+        request.setPrice(BigDecimal.TEN);
+        request.setPublishedDate(LocalDate.of(2020, 1, 1));
+        return request;
+    }
+
+    @Test
+    @DisplayName("Batch upsert resolves ids and ISBNs with one query each and flushes once")
+    void testCreateAndUpdateBooks_shouldResolveWithSetBasedQueries() {
+        // Arrange
+        List<BookUpsertRequest> requests = List.of(newRequest(1L, "123-456-789-1"), newRequest(null, "123-456-789-2"), newRequest(null, "123-456-789-3"));
+        when(bookRepository.findAllById(anyCollection())).thenReturn(List.of(existingBook));
+        when(bookRepository.findAllByIsbnIn(anyCollection())).thenReturn(List.of(existingBook));
+
+        // Act
+        List<Book> books = bookService.createAndUpdateBooks(requests);
+
+        // Assert
+        assertEquals(3, books.size());
+        assertSame(existingBook, books.get(0));
+        assertEquals("Title 123-456-789-1", existingBook.getTitle());
+        assertEquals("123-456-789-3", books.get(2).getIsbn());
+        verify(bookRepository, times(1)).findAllById(anyCollection());
+        verify(bookRepository, times(1)).findAllByIsbnIn(anyCollection());
+        verify(bookRepository, never()).findByIsbn(anyString());
+        verify(bookRepository, never()).findById(anyLong());
+        verify(bookRepository, times(1)).saveAll(argThat((Collection<Book> newBooks) -> newBooks.size() == 2));
+        verify(bookRepository, times(1)).flush();
+        verify(bookCountCache, times(1)).increment(2);
+        verify(bookChangeRepository, times(1)).saveAll(argThat((List<BookChange> changes) -> changes.stream().map(BookChange::getType).toList()
+                .equals(List.of(BookChange.Type.UPDATED, BookChange.Type.CREATED, BookChange.Type.CREATED))));
+    }
+
+    @Test
+    @DisplayName("Batch upsert rejects an ISBN used twice in the same batch before querying the database")
+    void testCreateAndUpdateBooks_whenIsbnRepeatedInBatch_shouldThrowAlreadyExistException() {
+        // Arrange
+        List<BookUpsertRequest> requests = List.of(newRequest(null, "123-456-789-2"), newRequest(null, "123-456-789-2"));
+
+        // Act and Assert
+        assertThrows(AlreadyExistException.class, () -> bookService.createAndUpdateBooks(requests));
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    @DisplayName("Batch upsert rejects an ISBN owned by a book outside the batch")
+    void testCreateAndUpdateBooks_whenIsbnOwnedByAnotherBook_shouldThrowAlreadyExistException() {
+        // Arrange
+        List<BookUpsertRequest> requests = List.of(newRequest(null, "123-456-789-1"));
+        when(bookRepository.findAllByIsbnIn(anyCollection())).thenReturn(List.of(existingBook));
+
+        // Act and Assert
+        AlreadyExistException exception = assertThrows(AlreadyExistException.class, () -> bookService.createAndUpdateBooks(requests));
+        assertEquals("Book with ISBN 123-456-789-1 has already existed.", exception.getMessage());
+        verify(bookRepository, never()).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("Batch upsert throws NotFoundException when a referenced book does not exist")
+    void testCreateAndUpdateBooks_whenBookIdNotFound_shouldThrowNotFoundException() {
+        // Arrange
+        List<BookUpsertRequest> requests = List.of(newRequest(5L, "123-456-789-5"));
+        when(bookRepository.findAllById(anyCollection())).thenReturn(List.of());
+
+        // Act and Assert
+        assertThrows(NotFoundException.class, () -> bookService.createAndUpdateBooks(requests));
+    }
+
+    @Test
+    @DisplayName("Search loads the books matched by the index in id order with one query")
+    void testSearch_shouldLoadMatchedBooksInIdOrder() {
+        // Arrange
+        Book first = new Book();
+        first.setId(2L);
+        Book second = new Book();
+        second.setId(7L);
+        when(bookSearchIndex.isWarm()).thenReturn(true);
+        when(bookSearchIndex.search("lord ring", 10)).thenReturn(new long[]{2L, 7L});
+        when(bookRepository.findAllById(List.of(2L, 7L))).thenReturn(List.of(second, first));
+
+        // Act
+        List<Book> books = bookService.search("lord ring", 10);
+
+        // Assert
+        assertEquals(List.of(2L, 7L), books.stream().map(Book::getId).toList());
+        verify(bookRepository, times(1)).findAllById(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Search throws ServiceUnavailableException while the index is warming up")
+    void testSearch_whenIndexNotWarm_shouldThrowServiceUnavailableException() {
+        // Arrange
+        when(bookSearchIndex.isWarm()).thenReturn(false);
+
+        // Act and Assert
+        assertThrows(ServiceUnavailableException.class, () -> bookService.search("lord", 10));
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    @DisplayName("Find by ids returns the books in request order with not-found markers, reading the database once")
+    void testFindByIds_shouldKeepRequestOrderAndMarkMissingIds() {
+        // Arrange
+        Book other = new Book();
+        other.setId(3L);
+        when(bookRepository.findAllById(anyCollection())).thenReturn(List.of(other, existingBook));
+
+        // Act
+        List<BookLookup> lookups = bookService.findByIds(List.of(3L, 9L, 1L, 3L));
+
+        // Assert
+        assertEquals(List.of(3L, 9L, 1L, 3L), lookups.stream().map(BookLookup::id).toList());
+        assertEquals(List.of(true, false, true, true), lookups.stream().map(BookLookup::found).toList());
+        assertNull(lookups.get(1).book());
+        assertSame(existingBook, lookups.get(2).book());
+        verify(bookRepository, times(1)).findAllById(argThat(ids -> Set.copyOf((Collection<Long>) ids).equals(Set.of(1L, 3L, 9L))));
+    }
+
+    @Test
+    @DisplayName("Find by ids only reads the ids missing from the cache, in chunks")
+    void testFindByIds_shouldReadUncachedIdsInChunks() {
+        // Arrange
+        bookCache.get(1L, id -> Optional.of(existingBook));
+        List<Long> ids = LongStream.rangeClosed(1, 1000).boxed().toList();
+        when(bookRepository.findAllById(anyCollection())).thenReturn(List.of());
+
+        // Act
+        List<BookLookup> lookups = bookService.findByIds(ids);
+
+        // Assert
+        assertEquals(1000, lookups.size());
+        assertTrue(lookups.get(0).found());
+        verify(bookRepository, times(2)).findAllById(argThat(chunk -> !((Collection<?>) chunk).contains(1L)));
+        assertThrows(BadRequestException.class, () -> bookService.findByIds(LongStream.rangeClosed(1, 1001).boxed().toList()));
+    }
+
+    @Test
+    @DisplayName("Throw BadRequestException when the ids to find contain null")
+    void testFindByIds_whenIdIsNull_shouldThrowBadRequestException() {
+        // Act and Assert
+        BadRequestException exception = assertThrows(BadRequestException.class, () -> bookService.findByIds(Arrays.asList(1L, null)));
+        assertEquals("Ids must not contain null", exception.getMessage());
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    @DisplayName("Books loaded by a multi-get while a write evicts one of them are returned but not cached")
+    void testFindByIds_whenEvictedDuringLoad_shouldNotCacheStaleBooks() throws Exception {
+        // Arrange
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Book updatedBook = new Book();
+        updatedBook.setId(1L);
+        updatedBook.setTitle("Updated Book");
+        when(bookRepository.findAllById(anyCollection()))
+                .thenAnswer(invocation -> {
+                    loadStarted.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return List.of(existingBook);
+                })
+                .thenReturn(List.of(updatedBook));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            // Act
+            Future<List<BookLookup>> stale = executor.submit(() -> bookService.findByIds(List.of(1L, 2L)));
+            assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+            // The write commits and evicts the book while it is being read
+            bookCache.evict(1L);
+            release.countDown();
+            List<BookLookup> staleLookups = stale.get(5, TimeUnit.SECONDS);
+            List<BookLookup> afterWrite = bookService.findByIds(List.of(1L, 2L));
+
+            // Assert
+            assertTrue(staleLookups.get(0).found());
+            assertFalse(staleLookups.get(1).found());
+            assertEquals(BookLookup.of(1L, updatedBook), afterWrite.get(0));
+            verify(bookRepository, times(2)).findAllById(anyCollection());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
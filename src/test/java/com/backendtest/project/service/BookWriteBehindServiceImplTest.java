@@ -0,0 +1,181 @@
+package com.backendtest.project.service;
+
+import com.backendtest.project.dto.BookUpsertRequest;
+import com.backendtest.project.exception.AlreadyExistException;
+import com.backendtest.project.exception.TooManyRequestsException;
+import com.backendtest.project.service.Impl.BookWriteBehindServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class BookWriteBehindServiceImplTest {
+
+    @Mock
+    private BookService bookService;
+
+    @TempDir
+    private Path directory;
+
+    private Path journal;
+    private BookWriteBehindServiceImpl writeBehindService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // Init mock annotations
+        MockitoAnnotations.openMocks(this);
+        journal = directory.resolve("books.journal");
+        writeBehindService = start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        writeBehindService.close();
+    }
+
+    private BookWriteBehindServiceImpl start() throws IOException {
+        BookWriteBehindServiceImpl service = new BookWriteBehindServiceImpl(bookService, new ObjectMapper(), 2, 10, journal, false);
+        service.replay();
+        return service;
+    }
+
+    private static BookUpsertRequest request(String title, String isbn) {
+        BookUpsertRequest request = new BookUpsertRequest();
+        request.setTitle(title);
+        request.setAuthor("Author");
+        request.setIsbn(isbn);
+        request.setPrice(BigDecimal.TEN);
+        request.setPublishedDate(LocalDate.of(2020, 1, 1));
+        return request;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<BookUpsertRequest> flushedBatch() {
+        ArgumentCaptor<List<BookUpsertRequest>> batch = ArgumentCaptor.forClass(List.class);
+        verify(bookService).createAndUpdateBooks(batch.capture());
+        return batch.getValue();
+    }
+
+    @Test
+    @DisplayName("Should coalesce upserts of the same ISBN and write the latest one in a batch")
+    void testFlush_CoalescesPerIsbn() {
+        // Arrange
+        writeBehindService.enqueue(request("First", "123-456-789-1"));
+        writeBehindService.enqueue(request("Other", "123-456-789-2"));
+        writeBehindService.enqueue(request("Latest", "1234567891"));
+
+        // Act
+        int written = writeBehindService.flush();
+
+        // Assert
+        assertEquals(2, written);
+        assertEquals(List.of("Latest", "Other"), flushedBatch().stream().map(BookUpsertRequest::getTitle).toList());
+        assertEquals(0, writeBehindService.pendingCount());
+    }
+
+    @Test
+    @DisplayName("Should reject a new ISBN with TooManyRequestsException when the buffer is full")
+    void testEnqueue_whenFull_shouldThrowTooManyRequestsException() {
+        // Arrange
+        writeBehindService.enqueue(request("Book 1", "123-456-789-1"));
+        writeBehindService.enqueue(request("Book 2", "123-456-789-2"));
+
+        // Act and Assert
+        assertThrows(TooManyRequestsException.class, () -> writeBehindService.enqueue(request("Book 3", "123-456-789-3")));
+        // Replacing a buffered book takes no room
+        writeBehindService.enqueue(request("Book 2 again", "123-456-789-2"));
+        assertEquals(2, writeBehindService.pendingCount());
+    }
+
+    @Test
+    @DisplayName("Should replay upserts not written before a restart, and forget them once written")
+    void testReplay_afterRestart_shouldWritePendingUpserts() throws IOException {
+        // Arrange
+        writeBehindService.enqueue(request("Book 1", "123-456-789-1"));
+        // Simulates a crash: nothing is flushed
+        BookWriteBehindServiceImpl restarted = start();
+
+        // Act
+        int written = restarted.flush();
+
+        // Assert
+        assertEquals(1, written);
+        assertEquals("Book 1", flushedBatch().get(0).getTitle());
+        assertEquals(0, Files.size(journal));
+        restarted.close();
+    }
+
+    @Test
+    @DisplayName("Should write a rejected batch book by book and drop only the books the database rejects")
+    void testFlush_whenBatchRejected_shouldDropOnlyRejectedBooks() throws ParseException {
+        // Arrange
+        BookUpsertRequest duplicate = request("Duplicate", "123-456-789-1");
+        writeBehindService.enqueue(duplicate);
+        writeBehindService.enqueue(request("Book 2", "123-456-789-2"));
+        when(bookService.createAndUpdateBooks(anyList())).thenThrow(new AlreadyExistException("Book with ISBN has already existed."));
+        when(bookService.createAndUpdateBook(duplicate)).thenThrow(new AlreadyExistException("Book with ISBN has already existed."));
+
+        // Act
+        int written = writeBehindService.flush();
+
+        // Assert
+        assertEquals(1, written);
+        verify(bookService, times(2)).createAndUpdateBook(any(BookUpsertRequest.class));
+        assertEquals(0, writeBehindService.pendingCount());
+    }
+
+    @Test
+    @DisplayName("Should keep the buffered books for the next flush while the database is unavailable")
+    void testFlush_whenDatabaseUnavailable_shouldKeepBooks() throws IOException {
+        // Arrange
+        writeBehindService.enqueue(request("Book 1", "123-456-789-1"));
+        when(bookService.createAndUpdateBooks(anyList())).thenThrow(new DataAccessResourceFailureException("Connection refused"));
+
+        // Act
+        int written = writeBehindService.flush();
+
+        // Assert
+        assertEquals(0, written);
+        assertEquals(1, writeBehindService.pendingCount());
+        assertTrue(Files.readString(journal).contains("\"title\":\"Book 1\""));
+    }
+
+    @Test
+    @DisplayName("Should replay the compacted journal then the upserts appended since, the latest one per ISBN winning")
+    void testReplay_afterCompaction_shouldApplyLaterSegments() throws IOException {
+        // Arrange
+        writeBehindService.enqueue(request("Book 1", "123-456-789-1"));
+        when(bookService.createAndUpdateBooks(anyList())).thenThrow(new DataAccessResourceFailureException("Connection refused"));
+        writeBehindService.flush();
+        writeBehindService.enqueue(request("Book 1 updated", "123-456-789-1"));
+        writeBehindService.enqueue(request("Book 2", "123-456-789-2"));
+        reset(bookService);
+
+        // Act
+        BookWriteBehindServiceImpl restarted = start();
+        int written = restarted.flush();
+
+        // Assert
+        assertEquals(2, written);
+        assertEquals(List.of("Book 1 updated", "Book 2"), flushedBatch().stream().map(BookUpsertRequest::getTitle).toList());
+        restarted.close();
+    }
+}
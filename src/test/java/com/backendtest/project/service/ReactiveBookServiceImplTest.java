@@ -0,0 +1,147 @@
+package com.backendtest.project.service;
+
+import com.backendtest.project.dto.BookPage;
+import com.backendtest.project.dto.BookUpsertRequest;
+import com.backendtest.project.exception.AlreadyExistException;
+import com.backendtest.project.exception.InvalidDateException;
+import com.backendtest.project.exception.NotFoundException;
+import com.backendtest.project.model.Book;
+import com.backendtest.project.repository.ReactiveBookRepository;
+import com.backendtest.project.service.Impl.ReactiveBookServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs {@link ReactiveBookServiceImpl} against an in-memory H2 database through R2DBC,
+ * with the schema of the reactive profile (schema-reactive.sql).
+ */
+@DataR2dbcTest(properties = {
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactive-books;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa"
+})
+@ActiveProfiles("reactive")
+@Import(ReactiveBookServiceImpl.class)
+public class ReactiveBookServiceImplTest {
+    @Autowired
+    private ReactiveBookService bookService;
+    @Autowired
+    private ReactiveBookRepository bookRepository;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository.deleteAll().block();
+    }
+
+    private static BookUpsertRequest newRequest(Long bookId, String isbn) {
+        BookUpsertRequest request = new BookUpsertRequest();
+        request.setBookId(bookId);
+        request.setTitle("Title " + isbn);
+        request.setAuthor("Author");
+        request.setIsbn(isbn);
+        request.setPrice(BigDecimal.valueOf(19.99));
+        request.setPublishedDate(LocalDate.of(2020, 1, 1));
+        return request;
+    }
+
+    @Test
+    @DisplayName("Should create a book and find it by its generated id")
+    void testCreateAndFindById() {
+        // Act
+        Book created = bookService.createAndUpdateBook(newRequest(null, "123-456-789-1")).block();
+
+        // Assert
+        StepVerifier.create(bookService.findById(created.getId()))
+                .assertNext(book -> {
+                    assertEquals("123-456-789-1", book.getIsbn());
+                    assertEquals(LocalDate.of(2020, 1, 1), book.getPublishedDate());
+                    assertEquals(0, BigDecimal.valueOf(19.99).compareTo(book.getPrice()));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Should update an existing book in place")
+    void testUpdateBook() {
+        // Arrange
+        Book created = bookService.createAndUpdateBook(newRequest(null, "123-456-789-1")).block();
+        BookUpsertRequest update = newRequest(created.getId(), "123-456-789-2");
+
+        // Act
+        bookService.createAndUpdateBook(update).block();
+
+        // Assert
+        StepVerifier.create(bookService.findById(created.getId()))
+                .assertNext(book -> assertEquals("123-456-789-2", book.getIsbn()))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Should reject an ISBN owned by another book")
+    void testCreateBook_IsbnAlreadyExists() {
+        // Arrange
+        bookService.createAndUpdateBook(newRequest(null, "123-456-789-1")).block();
+
+        // Act & Assert
+        StepVerifier.create(bookService.createAndUpdateBook(newRequest(null, "123-456-789-1")))
+                .expectError(AlreadyExistException.class)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Should reject a published date in the future")
+    void testCreateBook_FutureDate() {
+        // Arrange
+        BookUpsertRequest request = newRequest(null, "123-456-789-1");
+        request.setPublishedDate(LocalDate.now().plusYears(1));
+
+        // Act & Assert
+        StepVerifier.create(bookService.createAndUpdateBook(request))
+                .expectError(InvalidDateException.class)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Should signal NotFoundException when updating or deleting an unknown book")
+    void testUpdateAndDelete_NotFound() {
+        StepVerifier.create(bookService.createAndUpdateBook(newRequest(99L, "123-456-789-1")))
+                .expectError(NotFoundException.class)
+                .verify();
+        StepVerifier.create(bookService.deleteById(99L))
+                .expectError(NotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Should stream all books in id order and page through them")
+    void testFindAllAndPagination() {
+        // Arrange
+        for (int i = 1; i <= 3; i++) bookService.createAndUpdateBook(newRequest(null, "123-456-789-" + i)).block();
+
+        // Act & Assert
+        StepVerifier.create(bookService.findAll().map(Book::getIsbn))
+                .expectNext("123-456-789-1", "123-456-789-2", "123-456-789-3")
+                .verifyComplete();
+        BookPage<Book> firstPage = bookService.findAllWithPagination(PageRequest.of(0, 2), true).block();
+        assertEquals(3L, firstPage.totalCount());
+        assertTrue(firstPage.hasNext());
+        assertEquals(2, firstPage.data().size());
+        BookPage<Book> lastPage = bookService.findAllWithPagination(PageRequest.of(1, 2), false).block();
+        assertFalse(lastPage.hasNext());
+        assertEquals(List.of("123-456-789-3"), lastPage.data().stream().map(Book::getIsbn).toList());
+    }
+}
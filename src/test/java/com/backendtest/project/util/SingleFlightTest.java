@@ -0,0 +1,136 @@
+package com.backendtest.project.util;
+
+import com.backendtest.project.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTest {
+    private ExecutorService executor;
+    private SimpleMeterRegistry registry;
+    private SingleFlight singleFlight;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newCachedThreadPool();
+        registry = new SimpleMeterRegistry();
+        singleFlight = new SingleFlight(Duration.ofMillis(500));
+        singleFlight.bindTo(registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private double calls(String outcome) {
+        FunctionCounter counter = registry.find("book.single_flight.calls").tag("flight", "book").tag("outcome", outcome).functionCounter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    /**
+     * Waits until the given number of calls joined the flight started by the first one.
+     */
+    private void awaitCoalesced(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (calls("coalesced") < count && System.nanoTime() < deadline) Thread.sleep(5);
+    }
+
+    @Test
+    @DisplayName("Should run the loader once for concurrent calls with the same key and share its result")
+    void testExecute_CoalescesConcurrentCalls() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        List<Future<String>> results = new ArrayList<>();
+        results.add(executor.submit(() -> singleFlight.execute("book", 1L, () -> {
+            loads.incrementAndGet();
+            await(release);
+            return "Book 1";
+        })));
+        while (calls("executed") < 1) Thread.sleep(5);
+
+        // Act
+        for (int i = 0; i < 4; i++) {
+            results.add(executor.submit(() -> singleFlight.execute("book", 1L, () -> "loaded again")));
+        }
+        awaitCoalesced(4);
+        release.countDown();
+        String other = singleFlight.execute("book", 2L, () -> "Book 2");
+
+        // Assert
+        for (Future<String> result : results) assertEquals("Book 1", result.get(5, TimeUnit.SECONDS));
+        assertEquals("Book 2", other);
+        assertEquals(1, loads.get());
+        assertEquals(2, calls("executed"));
+        assertEquals(4, calls("coalesced"));
+        assertEquals("fresh", singleFlight.execute("book", 1L, () -> "fresh"));
+    }
+
+    @Test
+    @DisplayName("Should throw the failure of the loader to every call of the flight")
+    void testExecute_SharesFailure() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = executor.submit(() -> singleFlight.execute("book", 1L, () -> {
+            await(release);
+            throw new IllegalStateException("database down");
+        }));
+        while (calls("executed") < 1) Thread.sleep(5);
+        Future<String> follower = executor.submit(() -> singleFlight.execute("book", 1L, () -> "unused"));
+        awaitCoalesced(1);
+
+        // Act
+        release.countDown();
+
+        // Assert
+        ExecutionException leaderFailure = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        ExecutionException followerFailure = assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, leaderFailure.getCause());
+        assertSame(leaderFailure.getCause(), followerFailure.getCause());
+    }
+
+    @Test
+    @DisplayName("Should stop waiting for the flight after the timeout")
+    void testExecute_TimesOut() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        executor.submit(() -> singleFlight.execute("book", 1L, () -> {
+            await(release);
+            return "Book 1";
+        }));
+        while (calls("executed") < 1) Thread.sleep(5);
+
+        // Act and Assert
+        try {
+            assertThrows(ServiceUnavailableException.class, () -> singleFlight.execute("book", 1L, () -> "unused"));
+            assertEquals(1, calls("timeout"));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
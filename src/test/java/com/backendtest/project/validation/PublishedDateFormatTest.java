@@ -0,0 +1,38 @@
+package com.backendtest.project.validation;
+
+import com.backendtest.project.exception.InvalidDateException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PublishedDateFormatTest {
+
+    @Test
+    @DisplayName("Parse a valid MM-dd-yyyy date, including a leap day")
+    void testParse_whenDateIsValid_shouldReturnLocalDate() {
+        assertEquals(LocalDate.of(2020, 12, 31), PublishedDateFormat.parse("12-31-2020"));
+        assertEquals(LocalDate.of(2024, 2, 29), PublishedDateFormat.parse("02-29-2024"));
+        assertEquals(LocalDate.of(1999, 1, 1), PublishedDateFormat.parse("01-01-1999"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "2020-12-31", "12/31/2020", "1-31-2020", "12-31-20", "13-01-2020", "00-10-2020",
+            "12-00-2020", "04-31-2020", "02-29-2023", "02-30-2024", "ab-cd-efgh", "12-31-0000", "12-31-2020 "})
+    @DisplayName("Reject text that is not a valid MM-dd-yyyy date")
+    void testParse_whenDateIsInvalid_shouldThrowInvalidDateException(String text) {
+        InvalidDateException exception = assertThrows(InvalidDateException.class, () -> PublishedDateFormat.parse(text));
+        assertEquals("Published date must be in format MM-dd-yyyy", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Format a date back to MM-dd-yyyy")
+    void testFormat_shouldRoundTrip() {
+        assertEquals("02-09-2021", PublishedDateFormat.format(LocalDate.of(2021, 2, 9)));
+        assertEquals(LocalDate.of(2021, 2, 9), PublishedDateFormat.parse(PublishedDateFormat.format(LocalDate.of(2021, 2, 9))));
+    }
+}